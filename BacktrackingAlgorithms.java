@@ -3,26 +3,78 @@
  * BacktrackingAlgorithms.java
  * Strong backtracking for Connect4: Iterative Deepening + Principal Variation Search.
  * Uses decision -> explore -> undo pattern with aggressive pruning.
+ * A transposition table carries bounded scores and hash moves across
+ * transpositions and across iterative-deepening iterations.
+ * Optional Lazy SMP: helper threads search the same root on their own board
+ * copies and share only the (lock-free) transposition table.
  * 4 methods: findImmediateWin, isSafeMove, findBestMoveMinimaxBacktracking, findBestMoveThreatHeuristic
  */
 
 import java.util.*;
+import java.util.concurrent.*;
 
 public class BacktrackingAlgorithms {
 
     private final Board board;
     private final DivideAndConquerGreedy dnc;
+    private final LineTable lines;  // precomputed lines and neighbours of board's cells
 
     private static final int WIN_SCORE = 100000;
-    private static final int MAX_DEPTH = 10;
+    private static final int INF = Integer.MAX_VALUE;
+    private static final int MAX_DEPTH = 10;       // cap for fixed-depth searches
+    private static final int TIME_CHECK_MASK = 255; // read the clock every 256 nodes
+    private static final int TT_LOG2_BUCKETS = 17;  // 2^17 buckets x 2 slots x 16 bytes = 4 MB
+    private static final int EXACT = TranspositionTable.EXACT;
+    private static final int LOWER = TranspositionTable.LOWER;
+    private static final int UPPER = TranspositionTable.UPPER;
+    private final int maxPly;  // cap for timed/node-limited searches (board cells)
     private final int[] killerMoves;
     private final int[][] historyHeuristic;
+    private final TranspositionTable transpositionTable;
+    private final int[][] moveBuffers;  // one move list per ply (disc count): no allocation per node
+    private final long[][] orderKeys;   // ordering keys, parallel to moveBuffers
+
+    // Lazy SMP helpers; each owns a Board copy, killers and history
+    private BacktrackingAlgorithms[] helpers = new BacktrackingAlgorithms[0];
+    private ExecutorService helperPool;
+    private volatile boolean abortSearch;
+    private volatile boolean stopRequested;  // sticky stop from another thread
+
+    // Limits of the running search (timed = false / NO_NODE_LIMIT when unlimited)
+    private static final long NO_NODE_LIMIT = Long.MAX_VALUE;
+    private boolean timed;
+    private long deadline;
+    private long nodeLimit = NO_NODE_LIMIT;
+    private long nodes;
+
+    // Statistics of the running search (main thread), see getLastSearchStats
+    private long ttProbes, ttHits, ttCutoffs, betaCutoffs, firstMoveCutoffs;
+    private int depthReached;
+    private SearchStats lastStats = SearchStats.EMPTY;
+
+    // Root score of the last search for the side to move (see getLastScore)
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+    private int lastScore = NO_SCORE;
+
+    // Exact results for near-full boards (null = none); probed before evaluating
+    private EndgameTable endgameTable;
 
     public BacktrackingAlgorithms(Board board, DivideAndConquerGreedy dnc) {
+        this(board, dnc, new TranspositionTable(TT_LOG2_BUCKETS));
+    }
+
+    /** Engine over board that shares transpositionTable with other engines (Lazy SMP). */
+    public BacktrackingAlgorithms(Board board, DivideAndConquerGreedy dnc,
+            TranspositionTable transpositionTable) {
         this.board = board;
         this.dnc = dnc;
-        this.killerMoves = new int[MAX_DEPTH * 2];
-        this.historyHeuristic = new int[7][2];
+        this.lines = board.getLineTable();
+        this.maxPly = board.getRows() * board.getCols();
+        this.killerMoves = new int[maxPly + 1];
+        this.historyHeuristic = new int[board.getCols()][2];
+        this.transpositionTable = transpositionTable;
+        this.moveBuffers = new int[board.getRows() * board.getCols() + 1][board.getCols()];
+        this.orderKeys = new long[board.getRows() * board.getCols() + 1][board.getCols()];
         Arrays.fill(killerMoves, -1);
     }
 
@@ -60,11 +112,8 @@ public class BacktrackingAlgorithms {
             return wins;
         if (left == right) {
             int col = columns.get(left);
-            if (isColumnValid(col)) {
-                simulatePlaceDisc(col, player);
-                if (checkPlayerWins(player)) wins.add(col);
-                undoPlaceDisc(col);
-            }
+            if (isColumnValid(col) && checkPlayerWins(col, player))
+                wins.add(col);
             return wins;
         }
         int mid = left + (right - left) / 2;
@@ -111,8 +160,9 @@ public class BacktrackingAlgorithms {
         board.removeDisc(col);
     }
 
-    private boolean checkPlayerWins(char player) {
-        return dnc.checkWin(player);
+    /** Would player win by dropping into col? Bitboard test, no board mutation. */
+    private boolean checkPlayerWins(int col, char player) {
+        return board.isWinningMove(col, player);
     }
 
     // =====================================================================
@@ -142,9 +192,7 @@ public class BacktrackingAlgorithms {
         List<Integer> moves = getValidColumns();
         for (int c : moves) {
             if (!isColumnValid(c)) continue;
-            simulatePlaceDisc(c, player);
-            if (checkPlayerWins(player)) winCount++;
-            undoPlaceDisc(c);
+            if (checkPlayerWins(c, player)) winCount++;
             if (winCount >= 2) return true;
         }
         return false;
@@ -155,11 +203,9 @@ public class BacktrackingAlgorithms {
         for (int col : opponentMoves) {
             if (!isColumnValid(col))
                 continue;
-            simulatePlaceDisc(col, opponent);
-            if (checkPlayerWins(opponent)) {
-                undoPlaceDisc(col);
+            if (checkPlayerWins(col, opponent))
                 return false;
-            }
+            simulatePlaceDisc(col, opponent);
             if (hasDoubleThreat(opponent, ourPlayer)) {
                 undoPlaceDisc(col);
                 return false;
@@ -182,8 +228,8 @@ public class BacktrackingAlgorithms {
         List<Integer> ourResponses = getValidColumns();
         for (int ourCol : ourResponses) {
             if (!isColumnValid(ourCol)) continue;
+            if (checkPlayerWins(ourCol, ourPlayer)) continue;
             simulatePlaceDisc(ourCol, ourPlayer);
-            if (checkPlayerWins(ourPlayer)) { undoPlaceDisc(ourCol); continue; }
             if (hasDoubleThreat(opponent, ourPlayer)) {
                 undoPlaceDisc(ourCol);
                 return true;
@@ -198,15 +244,13 @@ public class BacktrackingAlgorithms {
         List<Integer> ourMoves = getValidColumns();
         for (int ourCol : ourMoves) {
             if (!isColumnValid(ourCol)) continue;
+            if (checkPlayerWins(ourCol, ourPlayer)) return false;
             simulatePlaceDisc(ourCol, ourPlayer);
-            if (checkPlayerWins(ourPlayer)) { undoPlaceDisc(ourCol); return false; }
             boolean oppHasWinningMove = false;
             List<Integer> oppMoves2 = getValidColumns();
             for (int oppCol2 : oppMoves2) {
                 if (!isColumnValid(oppCol2)) continue;
-                simulatePlaceDisc(oppCol2, opponent);
-                if (checkPlayerWins(opponent)) { oppHasWinningMove = true; undoPlaceDisc(oppCol2); break; }
-                undoPlaceDisc(oppCol2);
+                if (checkPlayerWins(oppCol2, opponent)) { oppHasWinningMove = true; break; }
             }
             undoPlaceDisc(ourCol);
             if (!oppHasWinningMove) return false;
@@ -219,9 +263,7 @@ public class BacktrackingAlgorithms {
         List<Integer> moves = getValidColumns();
         for (int col : moves) {
             if (!isColumnValid(col)) continue;
-            simulatePlaceDisc(col, threatPlayer);
-            if (checkPlayerWins(threatPlayer)) winCount++;
-            undoPlaceDisc(col);
+            if (checkPlayerWins(col, threatPlayer)) winCount++;
             if (winCount >= 2) return true;
         }
         return false;
@@ -246,39 +288,155 @@ public class BacktrackingAlgorithms {
     // Member 3: Iterative deepening from depth 2 to MAX_DEPTH; PVS for pruning.
     // Decision: try each valid move. Explore: recurse with PVS (null-window search).
     // Undo: remove disc after each branch. Killer + history for move ordering.
+    // Transposition table: probe bounds + hash move on entry, store on exit;
+    // entries survive between deepening iterations so each pass reuses the last.
+    // Timed variant: deepen one ply at a time until the deadline; the clock is
+    // read every 256 nodes and an unfinished iteration is discarded.
+    // Node-limited variant: same, but stops after exactly maxNodes pvs nodes
+    // (single-threaded, so the result is reproducible).
     // Time: O(b^d) with PVS; iterative deepening multiplies by depth factor
     // =====================================================================
 
     public int findBestMoveMinimaxBacktracking(char player, int depth) {
+        int searchDepth = Math.min(Math.max(2, depth), MAX_DEPTH);
+        timed = false;
+        nodeLimit = NO_NODE_LIMIT;
+        return searchRoot(player, 2, searchDepth, 2);
+    }
+
+    /**
+     * Anytime search: iterative deepening until budgetNanos has elapsed. Always
+     * returns the best move of the last completed iteration (heuristic order's
+     * first move if not even the first iteration finished).
+     */
+    public int findBestMoveTimed(char player, long budgetNanos) {
+        deadline = System.nanoTime() + Math.max(0L, budgetNanos);
+        timed = true;
+        nodeLimit = NO_NODE_LIMIT;
+        int emptyCells = board.getRows() * board.getCols() - board.getMoveCount();
+        return searchRoot(player, 1, Math.min(emptyCells, maxPly), 1);
+    }
+
+    /**
+     * Node-budgeted search: iterative deepening that stops deterministically once
+     * maxNodes search nodes have been visited (see getNodesSearched). Runs without
+     * Lazy SMP helpers so identical inputs (position, budget and the caches left
+     * by earlier searches) always cost and return the same.
+     */
+    public int findBestMoveNodeLimited(char player, long maxNodes) {
+        if (maxNodes < 1)
+            throw new IllegalArgumentException("maxNodes must be >= 1: " + maxNodes);
+        timed = false;
+        nodeLimit = maxNodes;
+        int emptyCells = board.getRows() * board.getCols() - board.getMoveCount();
+        return searchRoot(player, 1, Math.min(emptyCells, maxPly), 1);
+    }
+
+    /**
+     * Makes a running search (any thread) return its last completed iteration
+     * now. Sticky: later searches also stop at once until clearStop().
+     */
+    public void stopSearch() {
+        stopRequested = true;
+        abortSearch = true;
+    }
+
+    public void clearStop() {
+        stopRequested = false;
+    }
+
+    /** Forget everything learned this game: TT, killers and history (also on helpers). */
+    public void resetGame() {
+        transpositionTable.clear();
         Arrays.fill(killerMoves, -1);
-        for (int[] row : historyHeuristic) Arrays.fill(row, 0);
+        for (int[] row : historyHeuristic)
+            Arrays.fill(row, 0);
+        for (BacktrackingAlgorithms helper : helpers) {
+            Arrays.fill(helper.killerMoves, -1);
+            for (int[] row : helper.historyHeuristic)
+                Arrays.fill(row, 0);
+        }
+    }
 
+    /** Search nodes visited by the last findBestMove* call on this engine (main thread). */
+    public long getNodesSearched() {
+        return nodes;
+    }
+
+    /** Statistics of the last findBestMove* call (main thread; helpers not counted). */
+    public SearchStats getLastSearchStats() {
+        return lastStats;
+    }
+
+    /**
+     * Root score of the last completed iteration, side to move's view; NO_SCORE if
+     * none completed or the move was a forced block. A forced win or loss scores
+     * +-(WIN_SCORE + depth - plies), depth = getLastSearchStats().getDepthReached().
+     */
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    private int searchRoot(char player, int startDepth, int maxDepth, int step) {
+        // Tables persist across moves (see resetGame); only age them here
+        ageHistory();
+        transpositionTable.newSearch();
+        abortSearch = stopRequested;
+        nodes = 0;
+        ttProbes = ttHits = ttCutoffs = betaCutoffs = firstMoveCutoffs = 0;
+        depthReached = 0;
+        lastScore = NO_SCORE;
+        long start = System.nanoTime();
+        try {
+            return searchMoves(player, startDepth, maxDepth, step);
+        } finally {
+            lastStats = new SearchStats(nodes, System.nanoTime() - start, depthReached, ttProbes, ttHits,
+                    ttCutoffs, betaCutoffs, firstMoveCutoffs, SearchStats.branchingFactor(nodes, depthReached));
+        }
+    }
+
+    private int searchMoves(char player, int startDepth, int maxDepth, int step) {
         char opp = getOpponent(player);
 
         int win = findImmediateWin(player);
-        if (win != -1)
+        if (win != -1) {
+            lastScore = WIN_SCORE - 1;  // wins in 1 ply at depth 0
             return win;
+        }
         int block = findImmediateWin(opp);
         if (block != -1)
             return block;
 
-        List<Integer> moves = dnc.findValidMovesDnC(0, board.getCols() - 1);
-        if (moves.isEmpty())
+        int[] moves = moveBuffers[board.getMoveCount()];
+        int count = dnc.findValidMoves(moves);
+        if (count == 0)
             return -1;
 
-        orderMovesByHeuristic(moves, player);
-        int searchDepth = Math.min(Math.max(2, depth), MAX_DEPTH);
+        orderMovesByHeuristic(moves, count, player);
 
-        int best = moves.get(0);
+        List<Future<?>> running = startHelpers(player, maxDepth);
+        try {
+            return iterativeDeepening(player, moves, count, startDepth, maxDepth, step);
+        } finally {
+            stopHelpers(running);
+        }
+    }
+
+    private int iterativeDeepening(char player, int[] moves, int count, int startDepth, int maxDepth, int step) {
+        char opp = getOpponent(player);
+        int best = moves[0];
         int bestScore = Integer.MIN_VALUE;
 
-        for (int d = 2; d <= searchDepth; d += 2) {
-            int currentBest = moves.get(0);
+        for (int d = startDepth; d <= maxDepth; d += step) {
+            int currentBest = moves[0];
             int currentScore = Integer.MIN_VALUE;
-            for (int col : moves) {
+            for (int i = 0; i < count; i++) {
+                int col = moves[i];
                 board.insertDisc(col, player);
-                int score = -pvs(player, d - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+                int score = -pvs(opp, d - 1, -INF, INF);
                 board.removeDisc(col);
+                if (abortSearch)
+                    break;
                 recordKiller(col, 0);
                 recordHistory(col, player, 0);
                 if (score > currentScore || (score == currentScore && centerDistance(col) < centerDistance(currentBest))) {
@@ -286,102 +444,269 @@ public class BacktrackingAlgorithms {
                     currentBest = col;
                 }
             }
+            if (abortSearch)
+                break;  // out of time: keep the last completed iteration
             best = currentBest;
             bestScore = currentScore;
+            depthReached = d;
+            lastScore = bestScore;
             if (bestScore >= WIN_SCORE - MAX_DEPTH)
                 break;
         }
         return best;
     }
 
-    private int pvs(char player, int depth, int alpha, int beta, boolean isMax) {
+    // ---------------------------------------------------------------------
+    // Lazy SMP: helpers run the same iterative deepening with a depth offset
+    // and a rotated root order, filling the shared table ahead of the main
+    // thread. Only the main thread's result is returned.
+    // ---------------------------------------------------------------------
+
+    /** Number of threads for the PVS search (1 = single-threaded, the default). */
+    public void setSearchThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be >= 1: " + threads);
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+        helpers = new BacktrackingAlgorithms[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            Board copy = new Board(board);
+            helpers[i] = new BacktrackingAlgorithms(copy, new DivideAndConquerGreedy(copy), transpositionTable);
+            helpers[i].endgameTable = endgameTable;
+        }
+        if (helpers.length > 0) {
+            helperPool = Executors.newFixedThreadPool(helpers.length, r -> {
+                Thread t = new Thread(r, "pvs-helper");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /** Endgame table probed at every node it covers; shared with Lazy SMP helpers. */
+    public void setEndgameTable(EndgameTable table) {
+        this.endgameTable = table;
+        for (BacktrackingAlgorithms helper : helpers)
+            helper.endgameTable = table;
+    }
+
+    public int getSearchThreads() {
+        return helpers.length + 1;
+    }
+
+    private List<Future<?>> startHelpers(char player, int searchDepth) {
+        List<Future<?>> running = new ArrayList<>(helpers.length);
+        if (nodeLimit != NO_NODE_LIMIT)
+            return running;  // node budgets must stay reproducible
+        for (int i = 0; i < helpers.length; i++) {
+            BacktrackingAlgorithms helper = helpers[i];
+            int id = i + 1;
+            helper.board.copyFrom(board);
+            helper.abortSearch = false;
+            running.add(helperPool.submit(() -> helper.helperSearch(player, searchDepth, id)));
+        }
+        return running;
+    }
+
+    private void stopHelpers(List<Future<?>> running) {
+        for (BacktrackingAlgorithms helper : helpers)
+            helper.abortSearch = true;
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // A failed helper only loses its table contributions
+            }
+        }
+    }
+
+    /** Helper id: odd ids search odd depths (offset +1); root order rotated by id. */
+    private void helperSearch(char player, int searchDepth, int id) {
+        ageHistory();
         char opp = getOpponent(player);
+        int[] moves = moveBuffers[board.getMoveCount()];
+        int count = dnc.findValidMoves(moves);
+        if (count == 0) return;
+        orderMovesByHeuristic(moves, count, player);
+        int shift = id % count;
+        int maxDepth = Math.min(searchDepth + (id & 1), maxPly);
+        for (int d = 2 + (id & 1); d <= maxDepth && !abortSearch; d += 2) {
+            for (int i = 0; i < count; i++) {
+                int col = moves[(i + shift) % count];
+                board.insertDisc(col, player);
+                pvs(opp, d - 1, -INF, INF);
+                board.removeDisc(col);
+                if (abortSearch) return;
+            }
+        }
+    }
 
-        if (checkPlayerWins(player))
-            return WIN_SCORE + depth;
-        if (checkPlayerWins(opp))
+    /**
+     * Negamax PVS; scores are from the side to move (mover). Only the player who
+     * made the last move can have just won, so a win there is a loss for mover.
+     */
+    private int pvs(char mover, int depth, int alpha, int beta) {
+        if (abortSearch || limitReached())
+            return 0;
+        if (board.lastMoveWins())
             return -WIN_SCORE - depth;
+        if (endgameTable != null) {
+            int exact = endgameTable.probe(board, mover);
+            if (exact != OpeningBook.NOT_FOUND)
+                return EndgameTable.searchScore(exact, board.getMoveCount(), WIN_SCORE, depth);
+        }
         if (board.isBoardFull() || depth <= 0)
-            return dnc.evaluatePositionDnC(player);
+            return board.evaluate(mover);
+
+        long hash = board.getZobristHash();
+        long entry = transpositionTable.probe(hash);
+        ttProbes++;
+        if (entry != 0L) {
+            ttHits++;
+            if (TranspositionTable.depthOf(entry) >= depth) {
+                int ttScore = rebaseWinScore(TranspositionTable.scoreOf(entry), depth);
+                int flag = TranspositionTable.flagOf(entry);
+                if (flag == EXACT
+                        || (flag == LOWER && ttScore >= beta)
+                        || (flag == UPPER && ttScore <= alpha)) {
+                    ttCutoffs++;
+                    return ttScore;
+                }
+            }
+        }
+        int alphaOrig = alpha;
 
-        List<Integer> moves = dnc.findValidMovesDnC(0, board.getCols() - 1);
-        orderMovesByHeuristic(moves, isMax ? player : opp);
+        int[] moves = moveBuffers[board.getMoveCount()];
+        int count = dnc.findValidMoves(moves);
+        orderMovesByHeuristic(moves, count, mover);
+        promoteHashMove(moves, count, TranspositionTable.moveOf(entry));
 
-        int best = Integer.MIN_VALUE;
-        char mover = isMax ? player : opp;
+        char next = getOpponent(mover);
+        int best = -INF;
+        int bestMove = moves[0];
         boolean first = true;
 
-        for (int col : moves) {
+        for (int i = 0; i < count; i++) {
+            int col = moves[i];
             board.insertDisc(col, mover);
             int score;
             if (first) {
-                score = -pvs(player, depth - 1, -beta, -alpha, !isMax);
+                score = -pvs(next, depth - 1, -beta, -alpha);
                 first = false;
             } else {
-                score = -pvs(player, depth - 1, -alpha - 1, -alpha, !isMax);
+                score = -pvs(next, depth - 1, -alpha - 1, -alpha);
                 if (score > alpha && score < beta)
-                    score = -pvs(player, depth - 1, -beta, -score, !isMax);
+                    score = -pvs(next, depth - 1, -beta, -score);
             }
             board.removeDisc(col);
-            recordKiller(col, MAX_DEPTH - depth);
-            recordHistory(col, mover, MAX_DEPTH - depth);
-            best = Math.max(best, score);
+            if (abortSearch)
+                return 0;
+            recordKiller(col, maxPly - depth);
+            recordHistory(col, mover, Math.max(0, MAX_DEPTH - depth));
+            if (score > best) {
+                best = score;
+                bestMove = col;
+            }
             alpha = Math.max(alpha, score);
-            if (beta <= alpha)
+            if (beta <= alpha) {
+                betaCutoffs++;
+                if (i == 0)
+                    firstMoveCutoffs++;
                 break;
+            }
         }
+
+        int flag = (best <= alphaOrig) ? UPPER : (best >= beta) ? LOWER : EXACT;
+        transpositionTable.store(hash, depth, rebaseWinScore(best, depth), flag, bestMove);
         return best;
     }
 
-    private void orderMovesByHeuristic(List<Integer> moves, char currentPlayer) {
-        char opponent = getOpponent(currentPlayer);
-        moves.sort((a, b) -> {
-            int threatA = getThreatScore(a, currentPlayer);
-            int threatB = getThreatScore(b, currentPlayer);
-            if (threatA != threatB) return threatB - threatA;
-            int blockA = getBlockScore(a, currentPlayer, opponent);
-            int blockB = getBlockScore(b, currentPlayer, opponent);
-            if (blockA != blockB) return blockB - blockA;
-            int killerA = getKillerPriority(a);
-            int killerB = getKillerPriority(b);
-            if (killerA != killerB) return killerB - killerA;
-            int histA = getHistoryScore(a);
-            int histB = getHistoryScore(b);
-            if (histA != histB) return histB - histA;
-            return Integer.compare(centerDistance(a), centerDistance(b));
-        });
-    }
-
-    private int getThreatScore(int col, char player) {
-        if (!board.isValidMove(col)) return 0;
-        int row = board.insertDisc(col, player);
-        if (row < 0) { board.removeDisc(col); return 0; }
-        int score = dnc.checkWin(player) ? 1000 : (countThreats(player, row, col) * 50);
-        board.removeDisc(col);
+    /** Cheap limit check: counts the node, reads the clock only every 256 nodes. */
+    private boolean limitReached() {
+        if (++nodes >= nodeLimit) {
+            abortSearch = true;
+            return true;
+        }
+        if (!timed || (nodes & TIME_CHECK_MASK) != 0)
+            return false;
+        if (System.nanoTime() - deadline < 0)
+            return false;
+        abortSearch = true;
+        return true;
+    }
+
+    /** Try the move that was best last time this position was searched first. */
+    private void promoteHashMove(int[] moves, int count, int hashMove) {
+        if (hashMove < 0) return;
+        for (int i = 1; i < count; i++) {
+            if (moves[i] != hashMove) continue;
+            System.arraycopy(moves, 0, moves, 1, i);
+            moves[0] = hashMove;
+            return;
+        }
+    }
+
+    /**
+     * Win scores encode the remaining depth (WIN_SCORE + depth), which differs between
+     * transpositions. Re-base them to plies-to-win for storage and back to the probing
+     * node's depth on lookup; the mapping is its own inverse.
+     */
+    private int rebaseWinScore(int score, int depth) {
+        if (score >= WIN_SCORE - 2 * maxPly) return 2 * WIN_SCORE + depth - score;
+        if (score <= -WIN_SCORE + 2 * maxPly) return -2 * WIN_SCORE - depth - score;
         return score;
     }
 
+    /**
+     * Score-once ordering: one key per move from Board's threat queries (no board
+     * mutation), then a stable insertion sort (at most C entries). Key priority:
+     * immediate win, new threat cells created, blocks an opponent threat cell,
+     * killer, history, center.
+     */
+    private void orderMovesByHeuristic(int[] moves, int count, char currentPlayer) {
+        long[] keys = orderKeys[board.getMoveCount()];
+        for (int i = 0; i < count; i++) {
+            int col = moves[i];
+            int t = board.moveThreats(col, currentPlayer);
+            int threat = (t & Board.WINS) != 0 ? 1000 : 50 * (t & Board.NEW_THREATS);
+            int block = (t & Board.BLOCKS) != 0 ? 100 : 0;
+            keys[i] = orderKey(threat, block, getKillerPriority(col), getHistoryScore(col), centerDistance(col));
+        }
+        for (int i = 1; i < count; i++) {
+            int col = moves[i];
+            long key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] < key) {
+                moves[j + 1] = moves[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            moves[j + 1] = col;
+            keys[j + 1] = key;
+        }
+    }
+
+    // Lexicographic key in one long: threat | block | killer | history | center (nearer = higher)
+    private static long orderKey(int threat, int block, int killer, int history, int centerDistance) {
+        return ((long) threat << 52) | ((long) block << 45) | ((long) killer << 34)
+                | ((long) Math.min(history, (1 << 30) - 1) << 4) | (15 - centerDistance);
+    }
+
+    // Directions (of the 4 line directions) in which the cell joins 3+ of player's discs
     private int countThreats(char player, int row, int col) {
-        char[][] g = board.getBoard();
-        int[][] dirs = {{0, 1}, {1, 0}, {1, 1}, {-1, 1}};
+        int cell = lines.cell(row, col);
         int count = 0;
-        for (int[] d : dirs) {
-            int fwd = countPiecesFrom(g, row + d[0], col + d[1], d[0], d[1], player);
-            int bwd = countPiecesFrom(g, row - d[0], col - d[1], -d[0], -d[1], player);
-            if (1 + fwd + bwd >= 3) count++;
+        for (int d = 0; d < LineTable.DIRECTIONS; d++) {
+            int run = 1 + countPiecesFrom(cell, d, player) + countPiecesFrom(cell, d + LineTable.DIRECTIONS, player);
+            if (run >= 3) count++;
         }
         return count;
     }
 
-    private int getBlockScore(int col, char blocker, char opponent) {
-        if (!board.isValidMove(col)) return 0;
-        int row = board.insertDisc(col, blocker);
-        if (row < 0) return 0;
-        int score = scoreBlockAt(opponent, row, col);
-        board.removeDisc(col);
-        return score;
-    }
-
     private int getKillerPriority(int col) {
         for (int d = 0; d < killerMoves.length; d++)
             if (killerMoves[d] == col) return 1000 - d;
@@ -389,7 +714,7 @@ public class BacktrackingAlgorithms {
     }
 
     private int getHistoryScore(int col) {
-        return (col >= 0 && col < 7) ? historyHeuristic[col][0] + historyHeuristic[col][1] : 0;
+        return (col >= 0 && col < historyHeuristic.length) ? historyHeuristic[col][0] + historyHeuristic[col][1] : 0;
     }
 
     private void recordKiller(int col, int depth) {
@@ -398,18 +723,22 @@ public class BacktrackingAlgorithms {
     }
 
     private void recordHistory(int col, char player, int depth) {
-        if (col >= 0 && col < 7)
+        if (col >= 0 && col < historyHeuristic.length)
             historyHeuristic[col][player == 'R' ? 0 : 1] += (1 << Math.min(depth, 10));
     }
 
-    private int countPiecesFrom(char[][] g, int r, int c, int dr, int dc, char p) {
+    // Halve history scores so the previous move's counts guide, but don't dominate
+    private void ageHistory() {
+        for (int[] row : historyHeuristic)
+            for (int i = 0; i < row.length; i++)
+                row[i] >>= 1;
+    }
+
+    // Consecutive discs of p beyond cell in table direction k (0-7), up to 3
+    private int countPiecesFrom(int cell, int k, char p) {
         int n = 0;
-        for (int i = 0; i < 3; i++) {
-            int nr = r + i * dr, nc = c + i * dc;
-            if (nr < 0 || nr >= board.getRows() || nc < 0 || nc >= board.getCols() || g[nr][nc] != p)
-                return n;
+        for (int c = lines.next(cell, k); n < 3 && c >= 0 && board.getCell(c) == p; c = lines.next(c, k))
             n++;
-        }
         return n;
     }
 
@@ -492,21 +821,16 @@ public class BacktrackingAlgorithms {
     }
 
     private int getDropRow(int col) {
-        char[][] g = board.getBoard();
-        for (int r = board.getRows() - 1; r >= 0; r--)
-            if (g[r][col] == ' ')
-                return r;
-        return -1;
+        if (!board.isValidMove(col))
+            return -1;
+        return board.getRows() - 1 - board.getHeight(col);
     }
 
     private int scoreThreatAt(char player, int row, int col) {
-        char[][] g = board.getBoard();
-        int[][] dirs = {{0, 1}, {1, 0}, {1, 1}, {-1, 1}};
+        int cell = lines.cell(row, col);
         int total = 0;
-        for (int[] d : dirs) {
-            int fwd = countPiecesFrom(g, row + d[0], col + d[1], d[0], d[1], player);
-            int bwd = countPiecesFrom(g, row - d[0], col - d[1], -d[0], -d[1], player);
-            int lineLen = 1 + fwd + bwd;
+        for (int d = 0; d < LineTable.DIRECTIONS; d++) {
+            int lineLen = 1 + countPiecesFrom(cell, d, player) + countPiecesFrom(cell, d + LineTable.DIRECTIONS, player);
             if (lineLen == 2)
                 total += 20;
             else if (lineLen >= 3)
@@ -515,26 +839,12 @@ public class BacktrackingAlgorithms {
         return total;
     }
 
+    // 100 if a line through the cell holds three of opp's discs
     private int scoreBlockAt(char opp, int row, int col) {
-        char[][] g = board.getBoard();
-        int rows = board.getRows(), cols = board.getCols();
-        int[][] dirs = {{0, 1}, {1, 0}, {1, 1}, {-1, 1}};
-        for (int[] d : dirs) {
-            for (int offset = 0; offset < 4; offset++) {
-                int sr = row - offset * d[0], sc = col - offset * d[1];
-                int er = sr + 3 * d[0], ec = sc + 3 * d[1];
-                if (sr < 0 || sc < 0 || sr >= rows || sc >= cols || er >= rows || ec >= cols || er < 0 || ec < 0)
-                    continue;
-                int oppCount = 0;
-                for (int i = 0; i < 4; i++) {
-                    int nr = sr + i * d[0], nc = sc + i * d[1];
-                    if (nr >= 0 && nr < rows && nc >= 0 && nc < cols && g[nr][nc] == opp)
-                        oppCount++;
-                }
-                if (oppCount == 3)
-                    return 100;
-            }
-        }
+        int cell = lines.cell(row, col);
+        for (int k = lines.cellLineStart[cell]; k < lines.cellLineStart[cell + 1]; k++)
+            if (board.getLineCount(lines.cellLines[k], opp) == 3)
+                return 100;
         return 0;
     }
 
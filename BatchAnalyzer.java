@@ -0,0 +1,266 @@
+/**
+ * BatchAnalyzer.java
+ * Streams recorded positions through the engines on every core and writes
+ * one result per input line, in input order.
+ *
+ * Usage: java BatchAnalyzer [input] [output] [level] [threads] [nodes] [rows x cols]
+ *   input        move sequences, one position per line, 1-based columns as in
+ *                EngineProtocol ("4453" or "4 4 5 3"; space-separated above 9
+ *                columns); "-" = stdin (default)
+ *   output       result file; "-" = stdout (default)
+ *   level        GameDifficulty name (default HARD)
+ *   threads      worker threads (default = available processors)
+ *   nodes        node budget per position for MODERATE / HARD (default 0 = the
+ *                level's fixed-depth search)
+ *   rows x cols  board size, e.g. 9x7 (default 6x7); PERFECT needs 6x7
+ *
+ * Output, tab-separated: moves, best move (1-based, "none" once the game is
+ * over, "error" for a bad line), score (as EngineProtocol prints it, "-" if
+ * none), nodes, milliseconds. A bad line gets its message in the last column
+ * and does not stop the run.
+ *
+ * Pipeline: reader (calling thread) -> bounded task queue -> workers, each
+ * with its own Board + Connect4AI -> reorder ring -> writer thread. A
+ * semaphore caps positions read but not yet written at IN_FLIGHT_PER_THREAD
+ * per worker, so a slow position stalls the reader instead of growing any
+ * buffer: memory stays flat however large the input. The level's engine caches
+ * are reset before every position, so moves, scores and node counts do not
+ * depend on scheduling or threads (PERFECT: node counts may, results do not).
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BatchAnalyzer {
+
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
+    /** One input line, numbered in input order; seq < 0 tells a worker to stop. */
+    private static final class Task {
+        final long seq;
+        final String line;
+
+        Task(long seq, String line) {
+            this.seq = seq;
+            this.line = line;
+        }
+    }
+
+    private static final Task STOP = new Task(-1, null);
+    private static final String END = "";  // end of input for the writer; results end in '\n'
+
+    private final GameDifficulty level;
+    private final int threads;
+    private final long nodes;
+    private final int rows, cols;
+
+    // Pipeline state
+    private final int capacity;
+    private final Semaphore inFlight;
+    private final BlockingQueue<Task> tasks;
+    private final String[] ring;  // finished output lines at seq % capacity
+    private final LongAdder totalNodes = new LongAdder();
+    private IOException writeError;
+
+    public BatchAnalyzer(GameDifficulty level, int threads, long nodes, int rows, int cols) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1: " + threads);
+        if (nodes < 0) throw new IllegalArgumentException("nodes must be >= 0: " + nodes);
+        if (nodes > 0 && level != GameDifficulty.MODERATE && level != GameDifficulty.HARD)
+            throw new IllegalArgumentException("A node budget needs MODERATE or HARD");
+        if (level == GameDifficulty.PERFECT && (rows != Board.DEFAULT_ROWS || cols != Board.DEFAULT_COLS))
+            throw new IllegalArgumentException("PERFECT needs a 6x7 board");
+        new Board(rows, cols);  // validates the size before any thread starts
+        this.level = level;
+        this.threads = threads;
+        this.nodes = nodes;
+        this.rows = rows;
+        this.cols = cols;
+        this.capacity = threads * IN_FLIGHT_PER_THREAD;
+        this.inFlight = new Semaphore(capacity);
+        this.tasks = new ArrayBlockingQueue<>(capacity + threads);  // + one STOP per worker
+        this.ring = new String[capacity];
+    }
+
+    public static void main(String[] args) throws Exception {
+        String input = args.length > 0 ? args[0] : "-";
+        String output = args.length > 1 ? args[1] : "-";
+        GameDifficulty level = args.length > 2 ? GameDifficulty.valueOf(args[2].toUpperCase(Locale.ROOT))
+                : GameDifficulty.HARD;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long nodes = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        int rows = Board.DEFAULT_ROWS, cols = Board.DEFAULT_COLS;
+        if (args.length > 5) {
+            String[] size = args[5].toLowerCase(Locale.ROOT).split("x");
+            rows = Integer.parseInt(size[0]);
+            cols = Integer.parseInt(size[1]);
+        }
+
+        BatchAnalyzer analyzer = new BatchAnalyzer(level, threads, nodes, rows, cols);
+        try (BufferedReader in = input.equals("-")
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                    : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+             Writer out = output.equals("-")
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)
+                    : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+            long start = System.nanoTime();
+            long count = analyzer.run(in, out);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.printf(Locale.ROOT, "%d positions at %s on %dx%d, %d threads, in %.1f s (%.1f positions/s, %.0f nodes/s)%n",
+                    count, level, rows, cols, threads, seconds, count / seconds,
+                    analyzer.totalNodes.sum() / seconds);
+        }
+    }
+
+    // =====================================================================
+    // METHOD 1: PIPELINE
+    // Reader blocks on the in-flight semaphore (backpressure); workers take
+    // tasks and fill ring slots; the writer drains slots in sequence order
+    // and releases one permit per line written.
+    // TIME COMPLEXITY: O(lines * search / threads); memory O(threads)
+    // =====================================================================
+
+    /** Analyzes every line of in into out, in input order; returns the number of lines. */
+    public long run(BufferedReader in, Writer out) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) pool.execute(this::work);
+        Thread writer = new Thread(() -> write(out), "batch-writer");
+        writer.start();
+
+        long seq = 0;
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                inFlight.acquire();
+                tasks.put(new Task(seq++, line));
+            }
+        } finally {
+            for (int i = 0; i < threads; i++) tasks.put(STOP);
+            inFlight.acquire();
+            complete(seq, END);
+            writer.join();
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        if (writeError != null) throw writeError;
+        return seq;
+    }
+
+    // Worker loop: one Board + Connect4AI for the worker's lifetime
+    private void work() {
+        Board board = new Board(rows, cols);
+        Connect4AI ai = new Connect4AI(board);
+        try {
+            for (Task t; (t = tasks.take()) != STOP; )
+                complete(t.seq, analyze(board, ai, t.line));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void complete(long seq, String result) {
+        synchronized (ring) {
+            ring[(int) (seq % capacity)] = result;
+            ring.notifyAll();
+        }
+    }
+
+    // Writes slots in order; flushes whenever it has to wait, so output streams
+    private void write(Writer out) {
+        try {
+            for (long seq = 0; ; seq++) {
+                int slot = (int) (seq % capacity);
+                String result = poll(slot);
+                if (result == null) {
+                    flush(out);
+                    result = take(slot);
+                }
+                if (result.isEmpty()) break;  // END
+                if (writeError == null) {
+                    try {
+                        out.write(result);
+                    } catch (IOException e) {
+                        writeError = e;  // keep draining so the reader never blocks for good
+                    }
+                }
+                inFlight.release();
+            }
+            flush(out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String poll(int slot) {
+        synchronized (ring) {
+            String result = ring[slot];
+            ring[slot] = null;
+            return result;
+        }
+    }
+
+    private String take(int slot) throws InterruptedException {
+        synchronized (ring) {
+            while (ring[slot] == null) ring.wait();
+            String result = ring[slot];
+            ring[slot] = null;
+            return result;
+        }
+    }
+
+    private void flush(Writer out) {
+        if (writeError != null) return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            writeError = e;
+        }
+    }
+
+    // =====================================================================
+    // METHOD 2: ANALYZE ONE POSITION
+    // Replays the line on the worker's board (EngineProtocol's parser and
+    // rules), resets the level's caches, searches, formats one output line.
+    // TIME COMPLEXITY: O(moves) replay + the search
+    // =====================================================================
+
+    private String analyze(Board board, Connect4AI ai, String line) {
+        String moves = line.trim();
+        StringBuilder sb = new StringBuilder(moves.length() + 48).append(moves).append('\t');
+        try {
+            EngineProtocol.play(board, EngineProtocol.parseMoves(moves.split("\\s+"), 0, board.getCols()));
+            if (EngineProtocol.isGameOver(board))
+                return sb.append("none\t-\t0\t0.000\n").toString();
+
+            char player = (board.getMoveCount() % 2 == 0) ? 'R' : 'Y';
+            ai.resetCaches(level);
+            long start = System.nanoTime();
+            Connect4AI.SearchResult r = nodes > 0 ? ai.search(player, level, nodes) : ai.search(player, level);
+            long nanos = System.nanoTime() - start;
+            totalNodes.add(r.stats.getNodes());
+
+            String score = r.scoreText(board.getMoveCount());
+            sb.append(r.move < 0 ? "none" : Integer.toString(r.move + 1)).append('\t')
+              .append(score == null ? "-" : score).append('\t')
+              .append(r.stats.getNodes()).append('\t')
+              .append(String.format(Locale.ROOT, "%.3f", nanos / 1e6)).append('\n');
+            return sb.toString();
+        } catch (RuntimeException e) {
+            return sb.append("error\t-\t0\t0.000\t").append(e.getMessage()).append('\n').toString();
+        }
+    }
+}
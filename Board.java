@@ -2,84 +2,468 @@
  * Board.java
  * Manages the Connect4 game board state
  * Contains board operations: insert, undo, check valid moves
+ *
+ * The size is a constructor parameter (6x7 by default). Position is stored as
+ * per-column heights and a move counter plus, when (rows + 1) * cols <= 64,
+ * bitboards: one 64-bit mask per player, so insert, undo, column-full and
+ * board-full are all O(1). The char[][] grid is kept in sync as a read-only
+ * view for the UI. A Zobrist key is XORed in and out on every insert/undo, so
+ * the current position key is readable in O(1). Likewise per-line disc
+ * counters keep a running static evaluation (see evaluate); on boards too
+ * large for bitboards they also answer the win and threat queries.
  */
 
+import java.util.Arrays;
+import java.util.Random;
+
 public class Board {
-    private static final int ROWS = 6;
-    private static final int COLS = 7;
-    
+    public static final int DEFAULT_ROWS = 6;
+    public static final int DEFAULT_COLS = 7;
+    private static final int MIN_SIZE = 4;   // a line must fit
+    private static final int MAX_SIZE = 16;  // move-ordering keys give the center distance 4 bits
+    private static final int STANDARD_STRIDE = DEFAULT_ROWS + 1;
+
+    // moveThreats flags; the low bits count new threat cells
+    public static final int WINS = 1 << 8;
+    public static final int BLOCKS = 1 << 9;
+    public static final int NEW_THREATS = 0xFF;
+
+    // Line value for k discs of one side when the other side has none
+    private static final int[] LINE_WEIGHTS = {0, 1, 10, 50, 1000};
+
+    private final int rows;
+    private final int cols;
+
+    // Bit layout: column-major, (rows + 1) bits per column, bit 0 = bottom cell.
+    // The extra bit on top of each column is always empty (separates columns).
+    // Bit indices also index the Zobrist table, so they are used on every size.
+    private final int stride;
+    private final boolean bitboards;  // (rows + 1) * cols <= 64
+    private final long boardMask;     // every playable cell (bitboards only)
+
+    // Every 4-cell winning line and the lines through each cell (shared per size);
+    // the per-cell line lists are also held directly for the insert/undo path
+    private final LineTable lines;
+    private final int[] cellLineStart;
+    private final int[] cellLines;
+
+    // Zobrist keys per bit index and player, plus a side-to-move key
+    private final long[][] zobrist;
+    private final long zobristSide;
+
     private char[][] board;
-    
-    // Constructor
+
+    private final long[] discMasks;   // [0] = 'R' discs, [1] = 'Y' discs (bitboards only)
+    private long occupiedMask;
+    private final int[] heights;
+    private final int[] moveHistory;  // column of each disc, in play order
+    private int moveCount;
+    private long zobristHash;
+
+    // Incremental evaluation: discs per line and side ([line * 2 + side]), and
+    // the sum of all line values from Red's point of view
+    private final int[] lineCounts;
+    private int lineScore;
+    // Each side's threat mask, computed on first use per position (bit p of
+    // threatsValid); scratch space for threatGain when there are no bitboards
+    private final long[] threatMasks = new long[2];
+    private int threatsValid;
+    private final int[] threatScratch = new int[16];
+
+    // Constructor (standard 6x7 board)
     public Board() {
-        board = new char[ROWS][COLS];
+        this(DEFAULT_ROWS, DEFAULT_COLS);
+    }
+
+    // Empty rows x cols board
+    public Board(int rows, int cols) {
+        if (rows < MIN_SIZE || rows > MAX_SIZE || cols < MIN_SIZE || cols > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between " + MIN_SIZE + " and "
+                    + MAX_SIZE + " in each dimension: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = rows + 1;
+        this.bitboards = stride * cols <= 64;
+        this.boardMask = bitboards ? boardMask(rows, cols) : 0L;
+        this.lines = LineTable.of(rows, cols);
+        this.cellLineStart = lines.cellLineStart;
+        this.cellLines = lines.cellLines;
+        this.zobrist = initZobristTable(stride * cols);
+        this.zobristSide = zobrist[0][2];
+        board = new char[rows][cols];
+        discMasks = new long[2];
+        heights = new int[cols];
+        moveHistory = new int[rows * cols];
+        lineCounts = new int[lines.lines * 2];
         initializeBoard();
     }
-    
+
+    // Copy constructor (independent board for a search thread)
+    public Board(Board other) {
+        this(other.rows, other.cols);
+        copyFrom(other);
+    }
+
+    // Overwrite this board with other's position (same size)
+    public void copyFrom(Board other) {
+        if (other.rows != rows || other.cols != cols) {
+            throw new IllegalArgumentException("Cannot copy a " + other.rows + "x" + other.cols
+                    + " board into a " + rows + "x" + cols + " board");
+        }
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(other.board[i], 0, board[i], 0, cols);
+        }
+        discMasks[0] = other.discMasks[0];
+        discMasks[1] = other.discMasks[1];
+        occupiedMask = other.occupiedMask;
+        System.arraycopy(other.heights, 0, heights, 0, cols);
+        System.arraycopy(other.moveHistory, 0, moveHistory, 0, other.moveCount);
+        moveCount = other.moveCount;
+        zobristHash = other.zobristHash;
+        System.arraycopy(other.lineCounts, 0, lineCounts, 0, lineCounts.length);
+        lineScore = other.lineScore;
+        threatsValid = 0;
+    }
+
     // Initialize empty board
     public void initializeBoard() {
-        for (int i = 0; i < ROWS; i++) {
-            for (int j = 0; j < COLS; j++) {
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
                 board[i][j] = ' ';
             }
         }
+        discMasks[0] = 0L;
+        discMasks[1] = 0L;
+        occupiedMask = 0L;
+        for (int c = 0; c < cols; c++) {
+            heights[c] = 0;
+        }
+        moveCount = 0;
+        zobristHash = 0L;
+        Arrays.fill(lineCounts, 0);
+        lineScore = 0;
+        threatsValid = 0;
     }
-    
-    // Get board array
+
+    // Get board array (compatibility view; do not modify)
     public char[][] getBoard() {
         return board;
     }
-    
+
     // Get dimensions
     public int getRows() {
-        return ROWS;
+        return rows;
     }
-    
+
     public int getCols() {
-        return COLS;
+        return cols;
+    }
+
+    // Is this the standard 6x7 board (the solver, book and endgame table need it)?
+    public boolean isStandardSize() {
+        return rows == DEFAULT_ROWS && cols == DEFAULT_COLS;
     }
-    
+
+    // Is the position also kept as bitboards ((rows + 1) * cols <= 64)?
+    public boolean hasBitboards() {
+        return bitboards;
+    }
+
+    // Number of discs in column
+    public int getHeight(int col) {
+        return heights[col];
+    }
+
+    // Number of discs on the board
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    // Zobrist key of the current position, including side to move
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    // Bitboard of one player's discs (bitboard sizes only)
+    public long getDiscMask(char player) {
+        requireBitboards();
+        return discMasks[playerIndex(player)];
+    }
+
+    // Bitboard of all discs (bitboard sizes only)
+    public long getOccupiedMask() {
+        requireBitboards();
+        return occupiedMask;
+    }
+
+    // Precomputed lines and neighbours of this board's cells
+    public LineTable getLineTable() {
+        return lines;
+    }
+
+    // Disc at a LineTable cell ('R', 'Y' or ' ')
+    public char getCell(int cell) {
+        return board[cell / cols][cell % cols];
+    }
+
+    // Number of player's discs on a LineTable line
+    public int getLineCount(int line, char player) {
+        return lineCounts[line * 2 + playerIndex(player)];
+    }
+
+    // Bit index of a cell; row is counted from the bottom (0 = bottom)
+    public int bitIndex(int col, int rowFromBottom) {
+        return col * stride + rowFromBottom;
+    }
+
     // Check if column is valid for move
     public boolean isValidMove(int col) {
-        if (col < 0 || col >= COLS) {
+        if (col < 0 || col >= cols) {
             return false;
         }
-        return board[0][col] == ' ';
+        return heights[col] < rows;
     }
-    
+
     // Insert disc into column (returns row where disc landed, -1 if invalid)
     public int insertDisc(int col, char player) {
         if (!isValidMove(col)) {
             return -1;
         }
-        
-        // Drop disc to lowest available row
-        for (int row = ROWS - 1; row >= 0; row--) {
-            if (board[row][col] == ' ') {
-                board[row][col] = player;
-                return row;
-            }
+
+        int h = heights[col];
+        int idx = bitIndex(col, h);
+        int p = playerIndex(player);
+        if (bitboards) {
+            long bit = 1L << idx;
+            discMasks[p] |= bit;
+            occupiedMask |= bit;
         }
-        return -1;
+        zobristHash ^= zobrist[idx][p] ^ zobristSide;
+        heights[col] = h + 1;
+        moveHistory[moveCount++] = col;
+        threatsValid = 0;
+        int row = rows - 1 - h;
+        updateLines(lines.cell(row, col), p, 1);
+
+        board[row][col] = player;
+        return row;
     }
-    
-    // Remove disc from column (undo move)
+
+    // Remove disc from column (undo move; callers undo in reverse play order)
     public void removeDisc(int col) {
-        for (int row = 0; row < ROWS; row++) {
-            if (board[row][col] != ' ') {
-                board[row][col] = ' ';
-                break;
-            }
+        if (col < 0 || col >= cols || heights[col] == 0) {
+            return;
         }
+
+        int h = heights[col] - 1;
+        int idx = bitIndex(col, h);
+        int row = rows - 1 - h;
+        int p;
+        if (bitboards) {
+            long bit = 1L << idx;
+            p = (discMasks[0] & bit) != 0 ? 0 : 1;
+            discMasks[p] &= ~bit;
+            occupiedMask &= ~bit;
+        } else {
+            p = playerIndex(board[row][col]);
+        }
+        zobristHash ^= zobrist[idx][p] ^ zobristSide;
+        updateLines(lines.cell(row, col), p, -1);
+        heights[col] = h;
+        moveCount--;
+        threatsValid = 0;
+
+        board[row][col] = ' ';
     }
-    
+
     // Check if board is full
     public boolean isBoardFull() {
-        for (int col = 0; col < COLS; col++) {
-            if (board[0][col] == ' ') {
-                return false;
+        return moveCount == rows * cols;
+    }
+
+    // Column of the most recent disc, -1 on an empty board
+    public int getLastMoveColumn() {
+        return moveCount == 0 ? -1 : moveHistory[moveCount - 1];
+    }
+
+    // Did the most recent disc complete four in a row? Only the player who
+    // just moved can have won, so only that player's discs are tested.
+    public boolean lastMoveWins() {
+        if (moveCount == 0) {
+            return false;
+        }
+        int col = moveHistory[moveCount - 1];
+        if (bitboards) {
+            long bit = 1L << bitIndex(col, heights[col] - 1);
+            return hasFour((discMasks[0] & bit) != 0 ? discMasks[0] : discMasks[1]);
+        }
+        int row = rows - heights[col];
+        return lineThrough(lines.cell(row, col), playerIndex(board[row][col]), 4);
+    }
+
+    // Would dropping player's disc into col win? Tested without mutation.
+    public boolean isWinningMove(int col, char player) {
+        if (!isValidMove(col)) {
+            return false;
+        }
+        int p = playerIndex(player);
+        if (bitboards) {
+            return (threats(p) & (1L << bitIndex(col, heights[col]))) != 0;
+        }
+        return lineThrough(lines.cell(rows - 1 - heights[col], col), p, 3);
+    }
+
+    // Threat features of dropping player's disc into col, for move ordering
+    // (col must be playable): WINS if it completes four, BLOCKS if the opponent
+    // would complete four there, otherwise plus the number of empty cells that
+    // become winning for player and were not before (at most 0xFF)
+    public int moveThreats(int col, char player) {
+        int p = playerIndex(player);
+        if (bitboards) {
+            long cell = 1L << bitIndex(col, heights[col]);
+            long own = threats(p);
+            int flags = (cell & threats(1 - p)) != 0 ? BLOCKS : 0;
+            if ((cell & own) != 0) return flags | WINS;
+            return flags | Long.bitCount(winningCells(discMasks[p] | cell, occupiedMask | cell) & ~own);
+        }
+        int cell = lines.cell(rows - 1 - heights[col], col);
+        int flags = lineThrough(cell, 1 - p, 3) ? BLOCKS : 0;
+        if (lineThrough(cell, p, 3)) return flags | WINS;
+        return flags | threatGain(cell, p);
+    }
+
+    // moveThreats without bitboards: a line through cell with 2 of p's discs and
+    // no opponent disc gains a threat at its other empty cell
+    private int threatGain(int cell, int p) {
+        int n = 0;
+        for (int k = cellLineStart[cell]; k < cellLineStart[cell + 1]; k++) {
+            int line = cellLines[k];
+            if (lineCounts[line * 2 + p] != 2 || lineCounts[line * 2 + 1 - p] != 0) continue;
+            int target = -1;
+            for (int i = 0; i < LineTable.LINE_LENGTH; i++) {
+                int c = lines.lineCells[line * LineTable.LINE_LENGTH + i];
+                if (c != cell && getCell(c) == ' ') target = c;
             }
+            if (lineThrough(target, p, 3)) continue;  // already a threat
+            boolean counted = false;
+            for (int j = 0; j < n && !counted; j++) counted = threatScratch[j] == target;
+            if (!counted) threatScratch[n++] = target;
+        }
+        return n;
+    }
+
+    // Side p's threat mask (empty cells completing four), once per position
+    private long threats(int p) {
+        if ((threatsValid & (1 << p)) == 0) {
+            threatMasks[p] = winningCells(discMasks[p], occupiedMask);
+            threatsValid |= 1 << p;
+        }
+        return threatMasks[p];
+    }
+
+    // Does a line through cell hold n of side p's discs and none of the other's?
+    private boolean lineThrough(int cell, int p, int n) {
+        for (int k = cellLineStart[cell]; k < cellLineStart[cell + 1]; k++) {
+            int i = cellLines[k] * 2;
+            if (lineCounts[i + p] == n && lineCounts[i + 1 - p] == 0) return true;
+        }
+        return false;
+    }
+
+    // Shift-and-mask four-in-a-row test over a whole player mask. The standard
+    // stride is passed as a constant so the JIT folds the shift counts.
+    private boolean hasFour(long mask) {
+        return stride == STANDARD_STRIDE ? hasFour(mask, STANDARD_STRIDE) : hasFour(mask, stride);
+    }
+
+    private static boolean hasFour(long mask, int stride) {
+        long m = mask & (mask >> stride);           // horizontal
+        if ((m & (m >> (2 * stride))) != 0) return true;
+        m = mask & (mask >> (stride - 1));          // diagonal, descending
+        if ((m & (m >> (2 * (stride - 1)))) != 0) return true;
+        m = mask & (mask >> (stride + 1));          // diagonal, ascending
+        if ((m & (m >> (2 * (stride + 1)))) != 0) return true;
+        m = mask & (mask >> 1);                     // vertical
+        return (m & (m >> 2)) != 0;
+    }
+
+    // Static evaluation for player from the per-line counters: O(1).
+    // Each line that only one side occupies is worth LINE_WEIGHTS[discs] to it.
+    public int evaluate(char player) {
+        return player == 'R' ? lineScore : -lineScore;
+    }
+
+    // Add (delta = 1) or remove (delta = -1) side p's disc at cell:
+    // O(lines through the cell), at most 13
+    private void updateLines(int cell, int p, int delta) {
+        for (int k = cellLineStart[cell], end = cellLineStart[cell + 1]; k < end; k++) {
+            int i = cellLines[k] * 2;
+            int before = lineValue(lineCounts[i], lineCounts[i + 1]);
+            lineCounts[i + p] += delta;
+            lineScore += lineValue(lineCounts[i], lineCounts[i + 1]) - before;
         }
-        return true;
+    }
+
+    // Value of a line holding red and yellow discs, from Red's point of view
+    private static int lineValue(int red, int yellow) {
+        if (yellow == 0) return LINE_WEIGHTS[red];
+        if (red == 0) return -LINE_WEIGHTS[yellow];
+        return 0;
+    }
+
+    // Empty cells that would complete four for the discs in position
+    // (constant stride on the standard board, as in hasFour)
+    private long winningCells(long position, long occupied) {
+        long r = stride == STANDARD_STRIDE ? threatCells(position, STANDARD_STRIDE) : threatCells(position, stride);
+        return r & (boardMask ^ occupied);
+    }
+
+    private static long threatCells(long position, int stride) {
+        long r = (position << 1) & (position << 2) & (position << 3);  // vertical
+        r |= lineThreats(position, stride);                               // horizontal
+        r |= lineThreats(position, stride - 1);                           // diagonal, descending
+        r |= lineThreats(position, stride + 1);                           // diagonal, ascending
+        return r;
+    }
+
+    // Cells completing xxx_, xx_x, x_xx or _xxx along one shift distance
+    private static long lineThreats(long position, int shift) {
+        long p = (position << shift) & (position << 2 * shift);
+        long r = p & (position << 3 * shift);
+        r |= p & (position >>> shift);
+        p = (position >>> shift) & (position >>> 2 * shift);
+        r |= p & (position << shift);
+        r |= p & (position >>> 3 * shift);
+        return r;
+    }
+
+    private void requireBitboards() {
+        if (!bitboards) {
+            throw new IllegalStateException("No bitboards on a " + rows + "x" + cols
+                    + " board: (rows + 1) * cols exceeds 64 bits");
+        }
+    }
+
+    private static long boardMask(int rows, int cols) {
+        long column = (1L << rows) - 1;
+        long mask = 0;
+        for (int c = 0; c < cols; c++) mask |= column << (c * (rows + 1));
+        return mask;
+    }
+
+    private static int playerIndex(char player) {
+        return player == 'R' ? 0 : 1;
+    }
+
+    // Same seed as the original DP table so keys stay reproducible across runs
+    // and identical for every Board of one size (Lazy SMP copies share a table)
+    private static long[][] initZobristTable(int bitIndices) {
+        Random r = new Random(42);
+        long[][] table = new long[bitIndices][3];
+        for (int i = 0; i < table.length; i++)
+            for (int j = 0; j < 3; j++)
+                table[i][j] = r.nextLong();
+        return table;
     }
 }
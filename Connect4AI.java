@@ -1,8 +1,15 @@
 /**
  * Connect4AI.java
  * Coordinator for Connect4 algorithms. Delegates to paradigm-specific classes.
+ * If an opening book (connect4.book, see OpeningBookBuilder) is present in the
+ * working directory, Moderate/Hard/Perfect play covered openings from it.
+ * An endgame table (connect4.endgame, see EndgameTableBuilder) is likewise
+ * probed inside the Moderate and Hard searches.
  */
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
 
 public class Connect4AI {
@@ -11,12 +18,110 @@ public class Connect4AI {
     private final DivideAndConquerGreedy dnc;
     private final BacktrackingAlgorithms backtracking;
     private final DynamicProgrammingAlgorithms dp;
+    private volatile PerfectPlaySolver solver;  // created on first use (table is ~40 MB)
+    private volatile boolean solverStop;          // stopSearch before the solver exists
+    private OpeningBook openingBook;
+    private SearchStats lastStats = SearchStats.EMPTY;
+    private int lastScore = NO_SCORE;
+    private boolean lastScoreExact;
+
+    /** Score of a move that was not searched (Easy, forced blocks, unfinished searches). */
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+    /** Moderate/Hard forced wins score WIN_SCORE + depth - plies (losses the negation). */
+    public static final int WIN_SCORE = 100000;
+
+    /** A chosen column together with the score and statistics of the search behind it. */
+    public static final class SearchResult {
+        public final int move;
+        public final SearchStats stats;
+        /** Side to move's view: engine units, or PerfectPlaySolver's scale if exact; NO_SCORE if none. */
+        public final int score;
+        /** True when score is a proven result (solver or opening book). */
+        public final boolean exact;
+
+        SearchResult(int move, SearchStats stats, int score, boolean exact) {
+            this.move = move;
+            this.stats = stats;
+            this.score = score;
+            this.exact = exact;
+        }
+
+        /**
+         * Plies until the game ends if the score proves a forced result: positive when
+         * the side to move wins, negative when it loses; 0 otherwise (including draws).
+         * @param moveCount discs on the board when the search started
+         */
+        public int forcedResultPlies(int moveCount) {
+            if (score == NO_SCORE) return 0;
+            if (exact) {
+                if (score == 0) return 0;
+                int plies = PerfectPlaySolver.pliesToResult(score, moveCount);
+                return score > 0 ? plies : -plies;
+            }
+            // Heuristic evaluations stay far below WIN_SCORE / 2
+            int depth = stats.getDepthReached();
+            if (score > WIN_SCORE / 2) return depth + WIN_SCORE - score;
+            if (score < -WIN_SCORE / 2) return -(depth + WIN_SCORE + score);
+            return 0;
+        }
+
+        /** "cp N" (engine units), "win P" / "loss P" (forced, P plies), "draw" (proven), or null. */
+        public String scoreText(int moveCount) {
+            if (score == NO_SCORE) return null;
+            int plies = forcedResultPlies(moveCount);
+            if (plies > 0) return "win " + plies;
+            if (plies < 0) return "loss " + -plies;
+            return exact ? "draw" : "cp " + score;
+        }
+    }
+
+    public static final String DEFAULT_BOOK_FILE = "connect4.book";
+    public static final String DEFAULT_ENDGAME_FILE = "connect4.endgame";
 
     public Connect4AI(Board board) {
         this.board = board;
         this.dnc = new DivideAndConquerGreedy(board);
         this.backtracking = new BacktrackingAlgorithms(board, dnc);
         this.dp = new DynamicProgrammingAlgorithms(board, dnc);
+        try {
+            setOpeningBook(OpeningBook.openIfPresent(Paths.get(DEFAULT_BOOK_FILE)));
+        } catch (IOException e) {
+            System.err.println("Opening book not loaded: " + e.getMessage());
+        }
+        try {
+            setEndgameTable(EndgameTable.openIfPresent(Paths.get(DEFAULT_ENDGAME_FILE)));
+        } catch (IOException e) {
+            System.err.println("Endgame table not loaded: " + e.getMessage());
+        }
+    }
+
+    /** Book consulted before searching (null = none). */
+    public void setOpeningBook(OpeningBook book) {
+        this.openingBook = book;
+        if (solver != null) solver.setOpeningBook(book);
+    }
+
+    /** Endgame table probed at search leaves by Moderate and Hard (null = none). */
+    public void setEndgameTable(EndgameTable table) {
+        backtracking.setEndgameTable(table);
+        dp.setEndgameTable(table);
+    }
+
+    // Perfect book move, or -1 when the position is not covered
+    private int bookMove(char player) {
+        if (openingBook == null) return -1;
+        int move = openingBook.bestMove(board, player);
+        if (move != -1) {
+            lastStats = SearchStats.EMPTY;
+            int score = openingBook.probe(board, player);
+            setScore(score == OpeningBook.NOT_FOUND ? NO_SCORE : score, true);
+        }
+        return move;
+    }
+
+    private void setScore(int score, boolean exact) {
+        lastScore = score;
+        lastScoreExact = exact && score != NO_SCORE;
     }
 
     public boolean checkWin(char player) {
@@ -24,6 +129,8 @@ public class Connect4AI {
     }
 
     public int findBestMove(char player) {
+        lastStats = SearchStats.EMPTY;  // Easy does not search
+        setScore(NO_SCORE, false);
         char opp = (player == 'R') ? 'Y' : 'R';
 
         int win = backtracking.findImmediateWin(player);
@@ -44,24 +151,212 @@ public class Connect4AI {
         int[] arr = new int[safe.size()];
         for (int i = 0; i < safe.size(); i++) arr[i] = safe.get(i);
 
-        DivideAndConquerGreedy.WinChecker wc = p -> dnc.checkWin(p);
+        DivideAndConquerGreedy.WinChecker wc = p -> board.lastMoveWins();
         DivideAndConquerGreedy.SafeMoveChecker sc = (p, c) -> backtracking.isSafeMove(p, c);
         return dnc.findBestMoveGreedy(player, arr, wc, sc);
     }
 
+    /** Move for player at the given level, with the score and statistics of its search. */
+    public SearchResult search(char player, GameDifficulty difficulty) {
+        int move = findBestMove(player, difficulty);
+        return lastResult(move);
+    }
+
+    /** Moderate or Hard with a node budget (see findBestMoveModerate / findBestMoveHard). */
+    public SearchResult search(char player, GameDifficulty difficulty, long maxNodes) {
+        switch (difficulty) {
+            case MODERATE:
+                return lastResult(findBestMoveModerate(player, maxNodes));
+            case HARD:
+                return lastResult(findBestMoveHard(player, maxNodes));
+            default:
+                throw new IllegalArgumentException(difficulty + " has no node budget");
+        }
+    }
+
+    /** Anytime Hard search within budget (see findBestMove(char, Duration)). */
+    public SearchResult search(char player, Duration budget) {
+        return lastResult(findBestMove(player, budget));
+    }
+
+    private SearchResult lastResult(int move) {
+        return new SearchResult(move, lastStats, lastScore, lastScoreExact);
+    }
+
+    /** Move for player at the given level. */
+    public int findBestMove(char player, GameDifficulty difficulty) {
+        switch (difficulty) {
+            case MODERATE:
+                return findBestMoveModerate(player);
+            case HARD:
+                return findBestMoveHard(player);
+            case PERFECT:
+                return findBestMovePerfect(player);
+            case EASY:
+            default:
+                return findBestMove(player);
+        }
+    }
+
     public int findBestMoveModerate(char player) {
-        return dp.findBestMoveHard(player, 4);
+        int book = bookMove(player);
+        if (book != -1) return book;
+        int move = dp.findBestMoveHard(player, 4);
+        lastStats = dp.getLastSearchStats();
+        setScore(dp.getLastScore(), false);
+        return move;
+    }
+
+    /**
+     * Moderate with a node budget: deterministic stop after maxNodes search nodes.
+     * Searches cold (Moderate's caches are cleared first), so the same position and
+     * budget give the same move whatever ran before.
+     */
+    public int findBestMoveModerate(char player, long maxNodes) {
+        int book = bookMove(player);
+        if (book != -1) return book;
+        resetCaches(GameDifficulty.MODERATE);
+        int move = dp.findBestMoveHard(player, 4, maxNodes);
+        lastStats = dp.getLastSearchStats();
+        setScore(dp.getLastScore(), false);
+        return move;
     }
 
     public int findBestMoveHard(char player) {
-        return backtracking.findBestMoveMinimaxBacktracking(player, 6);
+        int book = bookMove(player);
+        if (book != -1) return book;
+        int move = backtracking.findBestMoveMinimaxBacktracking(player, 8);
+        lastStats = backtracking.getLastSearchStats();
+        setScore(backtracking.getLastScore(), false);
+        return move;
+    }
+
+    /** Hard with a node budget: deterministic stop after maxNodes search nodes; searches cold, as above. */
+    public int findBestMoveHard(char player, long maxNodes) {
+        int book = bookMove(player);
+        if (book != -1) return book;
+        resetCaches(GameDifficulty.HARD);
+        int move = backtracking.findBestMoveNodeLimited(player, maxNodes);
+        lastStats = backtracking.getLastSearchStats();
+        setScore(backtracking.getLastScore(), false);
+        return move;
+    }
+
+    /** Anytime Hard search: deepens until budget expires, returns last completed iteration's move. */
+    public int findBestMove(char player, Duration budget) {
+        int book = bookMove(player);
+        if (book != -1) return book;
+        int move = backtracking.findBestMoveTimed(player, budget.toNanos());
+        lastStats = backtracking.getLastSearchStats();
+        setScore(backtracking.getLastScore(), false);
+        return move;
+    }
+
+    /** Perfect play: solves every reply exactly. Fast mid-game; the opening can take minutes. */
+    public int findBestMovePerfect(char player) {
+        int book = bookMove(player);
+        if (book != -1) return book;
+        PerfectPlaySolver s = getSolver();
+        s.resetNodeCount();
+        long start = System.nanoTime();
+        int move = s.findBestMove(board, player);
+        lastStats = solverStats(s, start);
+        setScore(move == -1 || s.isStopped() ? NO_SCORE : s.getLastScore(), true);
+        return move;
+    }
+
+    /** Exact score with player to move (see PerfectPlaySolver for the scale); unreliable if stopped. */
+    public int solvePosition(char player) {
+        PerfectPlaySolver s = getSolver();
+        s.resetNodeCount();
+        long start = System.nanoTime();
+        int score = s.solve(board, player);
+        lastStats = solverStats(s, start);
+        setScore(s.isStopped() ? NO_SCORE : score, true);
+        return score;
+    }
+
+    // The solver searches to the end of the game (depth 0 if stopped); it keeps no table counters
+    private SearchStats solverStats(PerfectPlaySolver s, long start) {
+        int depth = s.isStopped() ? 0 : board.getRows() * board.getCols() - board.getMoveCount();
+        long nodes = s.getNodeCount();
+        return new SearchStats(nodes, System.nanoTime() - start, depth, 0, 0, 0, 0, 0,
+                SearchStats.branchingFactor(nodes, depth));
+    }
+
+    private PerfectPlaySolver getSolver() {
+        PerfectPlaySolver s = solver;
+        if (s == null) {
+            s = new PerfectPlaySolver();
+            s.setOpeningBook(openingBook);
+            solver = s;
+            if (solverStop) s.stopSearch();  // raced with stopSearch on another thread
+        }
+        return s;
+    }
+
+    /** Search nodes used by the last Moderate/Hard/timed/perfect call (Easy does not search). */
+    public long getLastNodeCount() {
+        return lastStats.getNodes();
+    }
+
+    /** Statistics of the last move or solve call; SearchStats.EMPTY for Easy and book moves. */
+    public SearchStats getLastSearchStats() {
+        return lastStats;
+    }
+
+    /**
+     * Stops a Moderate/Hard/timed/Perfect search running on another thread (Easy
+     * runs to completion, in well under a millisecond). Stays in effect until clearStop().
+     */
+    public void stopSearch() {
+        backtracking.stopSearch();
+        dp.stopSearch();
+        solverStop = true;
+        PerfectPlaySolver s = solver;
+        if (s != null) s.stopSearch();
+    }
+
+    public void clearStop() {
+        backtracking.clearStop();
+        dp.clearStop();
+        solverStop = false;
+        PerfectPlaySolver s = solver;
+        if (s != null) s.clearStop();
+    }
+
+    /** New game: drop caches learned during the last one (they persist between moves). */
+    public void resetGame() {
+        backtracking.resetGame();
+        dp.clearCache();
+        lastStats = SearchStats.EMPTY;
+        setScore(NO_SCORE, false);
+    }
+
+    /**
+     * Drops only the caches level's search reads, so a batch of unrelated positions
+     * analyses each one cold without clearing tables it will not touch. Easy keeps
+     * none; Perfect's table holds exact results only, so it is kept (just faster).
+     */
+    public void resetCaches(GameDifficulty level) {
+        if (level == GameDifficulty.MODERATE) dp.clearCache();
+        else if (level == GameDifficulty.HARD) backtracking.resetGame();
+        lastStats = SearchStats.EMPTY;
+        setScore(NO_SCORE, false);
+    }
+
+    /** Threads for Hard (Lazy SMP) and Moderate (fork-join YBWC); 1 = single-threaded. */
+    public void setSearchThreads(int threads) {
+        backtracking.setSearchThreads(threads);
+        dp.setParallelism(threads);
     }
 
     public void printAlgorithmInfo() {
         System.out.println("\n========================================");
         System.out.println("EASY: D&C + Greedy");
         System.out.println("MODERATE: DP (Minimax + Memo depth 4)");
-        System.out.println("HARD: Backtracking (Iterative Deepening + PVS depth 6)");
+        System.out.println("HARD: Backtracking (Iterative Deepening + PVS + TT depth 8)");
+        System.out.println("PERFECT: Solver (null-window negamax + threat ordering)");
         System.out.println("========================================\n");
     }
 }
@@ -4,7 +4,7 @@
  * Swing UI for Connect4 vs AI.
  * - EASY: D&C + Greedy
  * - MODERATE: Dynamic Programming (Minimax + Memo depth 4)
- * - HARD: Backtracking (Iterative Deepening + PVS depth 6)
+ * - HARD: Backtracking (Iterative Deepening + PVS depth 8)
  */
 
 import javax.swing.*;
@@ -18,6 +18,7 @@ public class Connect4UI extends JFrame {
     // Game components
     private Board board;
     private Connect4AI winChecker;
+    private Ponderer ponderer;  // searches the AI's replies while the human thinks
 
     // UI components
     private JPanel[][] cellPanels;
@@ -42,21 +43,6 @@ public class Connect4UI extends JFrame {
     private int aiWins = 0;
     private int draws = 0;
 
-    // Difficulty Enum
-    public enum GameDifficulty {
-        EASY("Easy", "D&C + Greedy"),
-        MODERATE("Moderate", "Dynamic Programming (Minimax + Memo)"),
-        HARD("Hard", "Backtracking (Iterative Deepening + PVS)");
-
-        public final String displayName;
-        public final String algorithms;
-
-        GameDifficulty(String displayName, String algorithms) {
-            this.displayName = displayName;
-            this.algorithms = algorithms;
-        }
-    }
-
     // Colors - Modern neumorphic palette
     private static final Color COLOR_RED = new Color(239, 68, 68);
     private static final Color COLOR_YELLOW = new Color(251, 146, 60);
@@ -78,6 +64,7 @@ public class Connect4UI extends JFrame {
         // Initialize game components
         board = new Board();
         winChecker = new Connect4AI(board);
+        winChecker.setSearchThreads(Runtime.getRuntime().availableProcessors());
 
         // Print D&C algorithms info to console
         winChecker.printAlgorithmInfo();
@@ -94,6 +81,10 @@ public class Connect4UI extends JFrame {
         setupUI();
 
         setVisible(true);
+
+        // Human (Red) moves first: start pondering the AI's answers right away
+        ponderer = new Ponderer(this::getAIMoveByDifficulty);
+        ponderer.start(board, 'R', 'Y', difficulty);
     }
 
     /**
@@ -481,8 +472,8 @@ public class Connect4UI extends JFrame {
                 "Minimax + memoization (depth 4).\n" +
                 "Transposition table caches board states.\n\n" +
                 "HARD - Backtracking:\n" +
-                "Iterative Deepening + PVS (depth 6).\n" +
-                "Try move, recurse, undo. No memoization.\n\n" +
+                "Iterative Deepening + PVS (depth 8).\n" +
+                "Try move, recurse, undo. Transposition table reuses bounds.\n\n" +
                 "Moderate and Hard use strong minimax search.";
 
         JTextArea textArea = new JTextArea(info);
@@ -514,6 +505,7 @@ public class Connect4UI extends JFrame {
 
         // Check win/draw
         if (checkGameEnd()) {
+            ponderer.cancel();
             return;
         }
 
@@ -523,16 +515,14 @@ public class Connect4UI extends JFrame {
         // AI plays when it's Yellow's turn
         if (currentPlayer == 'Y') {
             disableDropLabels();
+            GameDifficulty level = difficulty;  // read on the EDT, not by the worker
 
             SwingWorker<Integer, Void> aiWorker = new SwingWorker<Integer, Void>() {
                 @Override
                 protected Integer doInBackground() {
-                    try {
-                        Thread.sleep(200);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                    return getAIMoveByDifficulty('Y');
+                    // Reuse the search pondered for this reply, if any
+                    int move = ponderer.takeMove(board);
+                    return (move != -1) ? move : getAIMoveByDifficulty('Y', level);
                 }
 
                 @Override
@@ -543,6 +533,7 @@ public class Connect4UI extends JFrame {
 
                         if (!checkGameEnd()) {
                             currentPlayer = 'R';
+                            ponderer.start(board, 'R', 'Y', difficulty);
                         }
 
                         enableDropLabels();
@@ -559,17 +550,13 @@ public class Connect4UI extends JFrame {
     /**
      * Get AI move based on difficulty level
      */
-    private int getAIMoveByDifficulty(char player) {
-        switch (difficulty) {
-            case EASY:
-                return winChecker.findBestMove(player);
-            case MODERATE:
-                return winChecker.findBestMoveModerate(player);
-            case HARD:
-                return winChecker.findBestMoveHard(player);
-            default:
-                return winChecker.findBestMove(player);
-        }
+    private int getAIMoveByDifficulty(char player, GameDifficulty level) {
+        return getAIMoveByDifficulty(winChecker, player, level);
+    }
+
+    // Same choice on any engine (the ponderer runs it on board copies)
+    private int getAIMoveByDifficulty(Connect4AI ai, char player, GameDifficulty level) {
+        return ai.findBestMove(player, level);
     }
 
     /**
@@ -636,7 +623,9 @@ public class Connect4UI extends JFrame {
      * Reset game
      */
     private void resetGame() {
+        ponderer.resetGame();
         board.initializeBoard();
+        winChecker.resetGame();
         currentPlayer = 'R';
         gameOver = false;
 
@@ -648,6 +637,7 @@ public class Connect4UI extends JFrame {
         }
 
         enableDropLabels();
+        ponderer.start(board, 'R', 'Y', difficulty);
     }
 
     /**
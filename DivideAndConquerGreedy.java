@@ -9,126 +9,48 @@ import java.util.*;
 public class DivideAndConquerGreedy {
 
     private final Board board;
+    private final LineTable lines;    // precomputed 4-cell lines of board
+    private final int[] columnOrder;  // every column in findValidMovesDnC's order
+    private static final int LEAF_LINES = 8;  // line ranges this short are scanned directly
+    private static final int VERTICAL = 1;    // LineTable direction (1, 0)
 
     public DivideAndConquerGreedy(Board board) {
         this.board = board;
+        this.lines = board.getLineTable();
+        this.columnOrder = new int[board.getCols()];
+        splitCenterFirst(0, board.getCols() - 1, columnOrder, 0);
     }
 
     // =====================================================================
     // METHOD 1: D&C + GREEDY WIN DETECTION - Member 1
-    // D&C: Divide into 4 direction subproblems; each direction uses recursive
-    //      row/column range split. Conquer: check each half. Combine: OR.
+    // D&C: Divide into 4 direction subproblems; each direction's lines in the
+    //      precomputed LineTable are split by recursive halving of their index
+    //      range. Conquer: one disc-count test per line (Board keeps per-line
+    //      counts incrementally). Combine: OR.
     // Greedy: Check direction with highest win frequency first (horizontal).
-    //         Early exit on first win found (skip remaining directions).
-    // Time: O(R*C) worst; O(min scan) with greedy early exit
+    //         Early exit on first win found (skip remaining lines/directions).
+    // Time: O(L) worst for L lines (69 on 6x7); O(min scan) with greedy early exit
     // =====================================================================
 
     public boolean checkWin(char player) {
-        if (checkHorizontalDnC(player)) return true;
-        if (checkVerticalDnC(player)) return true;
-        if (checkDiagonalDownDnC(player)) return true;
-        return checkDiagonalUpDnC(player);
+        for (int d = 0; d < LineTable.DIRECTIONS; d++)
+            if (checkLinesRange(player, lines.directionStart[d], lines.directionStart[d + 1])) return true;
+        return false;
     }
 
     /**
-     * D&C: Divide row range [rStart, rEnd) into halves. Conquer each half.
+     * D&C: Divide line range [lStart, lEnd) into halves. Conquer each half.
      * Greedy: Check left half first; if win found, skip right half.
      */
-    private boolean checkHorizontalDnC(char player) {
-        int rows = board.getRows();
-        int cols = board.getCols();
-        return checkHorizontalRange(player, 0, rows, cols);
-    }
-
-    private boolean checkHorizontalRange(char player, int rStart, int rEnd, int cols) {
-        if (rEnd - rStart < 1) return false;
-        if (rEnd - rStart == 1) {
-            return scanRowForWin(player, rStart, cols, 0, 1);
-        }
-        int mid = rStart + (rEnd - rStart) / 2;
-        if (checkHorizontalRange(player, rStart, mid, cols)) return true;
-        return checkHorizontalRange(player, mid, rEnd, cols);
-    }
-
-    private boolean checkVerticalDnC(char player) {
-        int rows = board.getRows();
-        int cols = board.getCols();
-        return checkVerticalRange(player, 0, cols, rows);
-    }
-
-    private boolean checkVerticalRange(char player, int cStart, int cEnd, int rows) {
-        if (cEnd - cStart < 1) return false;
-        if (cEnd - cStart == 1) {
-            return scanColForWin(player, cStart, rows, 1, 0);
+    private boolean checkLinesRange(char player, int lStart, int lEnd) {
+        if (lEnd - lStart <= LEAF_LINES) {
+            for (int l = lStart; l < lEnd; l++)
+                if (board.getLineCount(l, player) == LineTable.LINE_LENGTH) return true;
+            return false;
         }
-        int mid = cStart + (cEnd - cStart) / 2;
-        if (checkVerticalRange(player, cStart, mid, rows)) return true;
-        return checkVerticalRange(player, mid, cEnd, rows);
-    }
-
-    private boolean checkDiagonalDownDnC(char player) {
-        int rows = board.getRows();
-        int cols = board.getCols();
-        return checkDiagDownRange(player, 0, rows - 3, cols);
-    }
-
-    private boolean checkDiagDownRange(char player, int rStart, int rEnd, int cols) {
-        if (rEnd - rStart < 1) return false;
-        if (rEnd - rStart == 1) {
-            return scanDiagonalForWin(player, rStart, 0, 1, 1, cols);
-        }
-        int mid = rStart + (rEnd - rStart) / 2;
-        if (checkDiagDownRange(player, rStart, mid, cols)) return true;
-        return checkDiagDownRange(player, mid, rEnd, cols);
-    }
-
-    private boolean checkDiagonalUpDnC(char player) {
-        int rows = board.getRows();
-        int cols = board.getCols();
-        return checkDiagUpRange(player, 3, rows, cols);
-    }
-
-    private boolean checkDiagUpRange(char player, int rStart, int rEnd, int cols) {
-        if (rEnd - rStart < 1) return false;
-        if (rEnd - rStart == 1) {
-            return scanDiagonalForWin(player, rStart, 0, -1, 1, cols);
-        }
-        int mid = rStart + (rEnd - rStart) / 2;
-        if (checkDiagUpRange(player, rStart, mid, cols)) return true;
-        return checkDiagUpRange(player, mid, rEnd, cols);
-    }
-
-    private boolean scanRowForWin(char player, int row, int cols, int dr, int dc) {
-        char[][] g = board.getBoard();
-        for (int c = 0; c <= cols - 4; c++) {
-            if (g[row][c] == player && g[row + dr][c + dc] == player
-                    && g[row + 2 * dr][c + 2 * dc] == player && g[row + 3 * dr][c + 3 * dc] == player)
-                return true;
-        }
-        return false;
-    }
-
-    private boolean scanColForWin(char player, int col, int rows, int dr, int dc) {
-        char[][] g = board.getBoard();
-        for (int r = 0; r <= rows - 4; r++) {
-            if (g[r][col] == player && g[r + dr][col + dc] == player
-                    && g[r + 2 * dr][col + 2 * dc] == player && g[r + 3 * dr][col + 3 * dc] == player)
-                return true;
-        }
-        return false;
-    }
-
-    private boolean scanDiagonalForWin(char player, int startRow, int startCol, int dr, int dc, int cols) {
-        char[][] g = board.getBoard();
-        int rows = board.getRows();
-        for (int c = startCol; c <= cols - 4; c++) {
-            int r = startRow;
-            if (r + 3 * dr < 0 || r + 3 * dr >= rows) continue;
-            if (g[r][c] == player && g[r + dr][c + dc] == player
-                    && g[r + 2 * dr][c + 2 * dc] == player && g[r + 3 * dr][c + 3 * dc] == player)
-                return true;
-        }
-        return false;
+        int mid = lStart + (lEnd - lStart) / 2;
+        if (checkLinesRange(player, lStart, mid)) return true;
+        return checkLinesRange(player, mid, lEnd);
     }
 
     // =====================================================================
@@ -173,6 +95,33 @@ public class DivideAndConquerGreedy {
         return mergeCenterFirst(left, center, right, centerCol);
     }
 
+    /**
+     * Allocation-free variant for the search loops: writes the playable columns
+     * into out (length >= cols) in the same center-first order; returns the count.
+     * The 3-way split does not depend on the position, so it is done once.
+     */
+    public int findValidMoves(int[] out) {
+        int n = 0;
+        for (int col : columnOrder)
+            if (board.isValidMove(col)) out[n++] = col;
+        return n;
+    }
+
+    // Same split as findValidMovesDnCGreedy over all columns; returns next free index
+    private static int splitCenterFirst(int start, int end, int[] out, int n) {
+        if (start > end) return n;
+        if (end - start + 1 <= 2) {
+            for (int c = start; c <= end; c++) out[n++] = c;
+            return n;
+        }
+        int third = (end - start + 1) / 3;
+        int leftEnd = start + third - 1;
+        int rightStart = end - third + 1;
+        n = splitCenterFirst(leftEnd + 1, rightStart - 1, out, n);
+        n = splitCenterFirst(start, leftEnd, out, n);
+        return splitCenterFirst(rightStart, end, out, n);
+    }
+
     private List<Integer> mergeCenterFirst(List<Integer> left, List<Integer> center,
             List<Integer> right, int centerCol) {
         List<Integer> merged = new ArrayList<>(left.size() + center.size() + right.size());
@@ -205,7 +154,7 @@ public class DivideAndConquerGreedy {
     // D&C: Divide board into 4 quadrants (2x2 grid). Conquer each quadrant.
     // Greedy: Weight center quadrants higher (pieces near center more valuable).
     // Combine: weighted sum of quadrant scores + connected-piece bonus.
-    // Time: O(R*C) total; countConnectedDnC is O(P) for P pieces
+    // Time: O(R*C) total; countConnectedDnC is O(R*C) via LineTable neighbours
     // =====================================================================
 
     public int evaluatePositionDnC(char player) {
@@ -252,89 +201,56 @@ public class DivideAndConquerGreedy {
 
     /**
      * D&C: Divide board into left/right halves by columns. Recursively count in each half.
-     * Combine: add left + right + patterns spanning the vertical boundary.
+     * Combine: add left + right + runs spanning the vertical boundary.
+     * A run is len consecutive discs of player from a start cell in one direction,
+     * walked with the LineTable's neighbour links instead of bounds-checked steps.
      */
     private int countConnectedDnC(char player, int len) {
-        char[][] g = board.getBoard();
-        int rows = board.getRows();
-        int cols = board.getCols();
-        return countConnectedDnCRecurse(g, player, len, 0, rows, 0, cols);
+        return countConnectedDnCRecurse(player, len, 0, board.getCols());
     }
 
-    private int countConnectedDnCRecurse(char[][] g, char player, int len,
-            int rStart, int rEnd, int cStart, int cEnd) {
-        int rSize = rEnd - rStart;
-        int cSize = cEnd - cStart;
-        if (rSize <= 2 || cSize <= 2) {
-            return countConnectedInRegion(g, player, len, rStart, rEnd, cStart, cEnd);
-        }
+    private int countConnectedDnCRecurse(char player, int len, int cStart, int cEnd) {
+        if (cEnd - cStart <= 2) return countConnectedInRegion(player, len, cStart, cEnd);
         int midC = cStart + (cEnd - cStart) / 2;
-        int left = countConnectedDnCRecurse(g, player, len, rStart, rEnd, cStart, midC);
-        int right = countConnectedDnCRecurse(g, player, len, rStart, rEnd, midC, cEnd);
-        int cross = countCrossingVertical(g, player, len, rStart, rEnd, cStart, cEnd, midC);
+        int left = countConnectedDnCRecurse(player, len, cStart, midC);
+        int right = countConnectedDnCRecurse(player, len, midC, cEnd);
+        int cross = countCrossingVertical(player, len, cStart, cEnd, midC);
         return left + right + cross;
     }
 
-    private int countConnectedInRegion(char[][] g, char player, int len,
-            int rStart, int rEnd, int cStart, int cEnd) {
-        int rows = board.getRows();
-        int cols = board.getCols();
-        Set<String> seen = new HashSet<>();
+    // Runs starting in columns [cStart, cEnd), all four directions
+    private int countConnectedInRegion(char player, int len, int cStart, int cEnd) {
         int count = 0;
-        int[][] dirs = { { 0, 1 }, { 1, 0 }, { 1, 1 }, { -1, 1 } };
-        for (int r = rStart; r < rEnd; r++) {
+        for (int r = 0; r < board.getRows(); r++) {
             for (int c = cStart; c < cEnd; c++) {
-                if (g[r][c] != player) continue;
-                for (int[] d : dirs) {
-                    int dr = d[0], dc = d[1];
-                    int er = r + (len - 1) * dr, ec = c + (len - 1) * dc;
-                    if (er < 0 || er >= rows || ec < 0 || ec >= cols) continue;
-                    String key = r + "," + c + "," + dr + "," + dc;
-                    if (seen.contains(key)) continue;
-                    if (checkPattern(g, player, r, c, dr, dc, len)) {
-                        count++;
-                        seen.add(key);
-                    }
-                }
+                int cell = lines.cell(r, c);
+                if (board.getCell(cell) != player) continue;
+                for (int d = 0; d < LineTable.DIRECTIONS; d++)
+                    if (isRun(cell, d, player, len)) count++;
             }
         }
         return count;
     }
 
-    private int countCrossingVertical(char[][] g, char player, int len,
-            int rStart, int rEnd, int cStart, int cEnd, int midC) {
-        int rows = board.getRows();
-        int cols = board.getCols();
-        Set<String> seen = new HashSet<>();
+    // Rightward runs (horizontal, both diagonals) that start left of midC and reach it
+    private int countCrossingVertical(char player, int len, int cStart, int cEnd, int midC) {
         int count = 0;
-        int[][] dirs = { { 0, 1 }, { 1, 1 }, { -1, 1 } };
-        for (int r = rStart; r < rEnd; r++) {
-            for (int c = Math.max(cStart, midC - len + 1); c < Math.min(midC + 1, cEnd - len + 1); c++) {
-                if (c + len - 1 < midC || c >= midC) continue;
-                if (g[r][c] != player) continue;
-                for (int[] d : dirs) {
-                    int dr = d[0], dc = d[1];
-                    int er = r + (len - 1) * dr, ec = c + (len - 1) * dc;
-                    if (er < 0 || er >= rows || ec < 0 || ec >= cols) continue;
-                    boolean crosses = (c < midC && c + (len - 1) * dc >= midC) || (c >= midC && c + (len - 1) * dc < midC);
-                    if (!crosses) continue;
-                    String key = r + "," + c + "," + dr + "," + dc;
-                    if (seen.contains(key)) continue;
-                    if (checkPattern(g, player, r, c, dr, dc, len)) {
-                        count++;
-                        seen.add(key);
-                    }
-                }
+        for (int r = 0; r < board.getRows(); r++) {
+            for (int c = Math.max(cStart, midC - len + 1); c < Math.min(midC, cEnd - len + 1); c++) {
+                int cell = lines.cell(r, c);
+                if (board.getCell(cell) != player) continue;
+                for (int d = 0; d < LineTable.DIRECTIONS; d++)
+                    if (d != VERTICAL && isRun(cell, d, player, len)) count++;
             }
         }
         return count;
     }
 
-    private boolean checkPattern(char[][] g, char player, int sr, int sc, int dr, int dc, int len) {
-        for (int i = 0; i < len; i++) {
-            int r = sr + i * dr, c = sc + i * dc;
-            if (r < 0 || r >= board.getRows() || c < 0 || c >= board.getCols() || g[r][c] != player)
-                return false;
+    // Are the len cells from cell in direction d all player's? (cell itself already is)
+    private boolean isRun(int cell, int d, char player, int len) {
+        for (int i = 1; i < len; i++) {
+            cell = lines.next(cell, d);
+            if (cell < 0 || board.getCell(cell) != player) return false;
         }
         return true;
     }
@@ -3,71 +3,226 @@
  * Eight methods, each representing one algorithm used in DP-style game search:
  * memoization, Zobrist hashing, transposition table, alpha-beta, move ordering, etc.
  * Each method is medium-length (not too long, not too short).
+ * Optional fork-join parallel alpha-beta (Young Brothers Wait) shares the
+ * transposition table between per-task engines on board copies.
  */
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 public class DynamicProgrammingAlgorithms {
 
     private final Board board;
     private final DivideAndConquerGreedy dnc;
 
-    private final Map<Long, TTEntry> transpositionTable;
-    private final Map<Long, Integer> evaluationCache;
+    private final TranspositionTable transpositionTable;
     private final Map<Long, Integer> winMoveCache;
-    private final Map<Long, List<Integer>> moveOrderCache;
-    private final long[][] zobristTable;
+    private final int[][] moveBuffers;  // one move list per ply (disc count): no allocation per node
+    private final long[][] orderKeys;   // ordering keys, parallel to moveBuffers
     private final int[] killerMoves;
+    private final int maxPly;  // rows * cols: bounds the win-score distance
     private final int[][] historyHeuristic;
 
-    private static final int EXACT = 0, LOWER = 1, UPPER = 2;
+    private static final int EXACT = TranspositionTable.EXACT;
+    private static final int LOWER = TranspositionTable.LOWER;
+    private static final int UPPER = TranspositionTable.UPPER;
     private static final int WIN_SCORE = 100000;
     private static final int MAX_CACHE_SIZE = 50000;
-
-    private long cacheHits, cacheMisses;
+    private static final int TT_LOG2_BUCKETS = 16;  // 2^16 buckets x 2 slots x 16 bytes = 2 MB
+    private static final int TT_MISS = Integer.MIN_VALUE;
+    // minimaxMemo scores are from the root player's view; keep R and Y entries apart
+    private static final long ROOT_Y_KEY = 0x9E3779B97F4A7C15L;
+
+    // Statistics of the running search; forked tasks merge theirs into forkedCounters
+    private long ttProbes, ttHits, ttCutoffs, betaCutoffs, firstMoveCutoffs;
+    private int depthReached;
+    private ForkedCounters forkedCounters = new ForkedCounters();
+    private SearchStats lastStats = SearchStats.EMPTY;
+
+    // Root score of the last search for the side to move (see getLastScore)
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+    private int lastScore = NO_SCORE;
+
+    // Parallel search: null pool = serial. activeSplit is set on per-task engines.
+    private static final int DEFAULT_SPLIT_DEPTH = 3;
+    private ForkJoinPool forkJoinPool;
+    private int splitDepth = DEFAULT_SPLIT_DEPTH;
+    private SplitPoint activeSplit;
+
+    // Node accounting: nodes on this engine; forkedNodes collects forked tasks' nodes
+    private static final long NO_NODE_LIMIT = Long.MAX_VALUE;
+    private long nodeLimit = NO_NODE_LIMIT;
+    private boolean nodeLimitHit;
+    private long nodes;
+    private LongAdder forkedNodes = new LongAdder();
+    private AtomicBoolean stopRequested = new AtomicBoolean();  // shared with forked tasks
+
+    // Exact results for near-full boards (null = none); probed before evaluating
+    private EndgameTable endgameTable;
 
     public DynamicProgrammingAlgorithms(Board board, DivideAndConquerGreedy dnc) {
+        this(board, dnc, new TranspositionTable(TT_LOG2_BUCKETS));
+    }
+
+    /** Engine over board that shares transpositionTable with other engines. */
+    public DynamicProgrammingAlgorithms(Board board, DivideAndConquerGreedy dnc,
+            TranspositionTable transpositionTable) {
         this.board = board;
         this.dnc = dnc;
-        this.transpositionTable = new HashMap<>();
-        this.evaluationCache = new HashMap<>();
+        this.transpositionTable = transpositionTable;
         this.winMoveCache = new HashMap<>();
-        this.moveOrderCache = new HashMap<>();
-        this.zobristTable = initZobristTable();
-        this.killerMoves = new int[32];
-        this.historyHeuristic = new int[7][2];
+        this.moveBuffers = new int[board.getRows() * board.getCols() + 1][board.getCols()];
+        this.orderKeys = new long[board.getRows() * board.getCols() + 1][board.getCols()];
+        this.maxPly = board.getRows() * board.getCols();
+        this.killerMoves = new int[maxPly + 1];
+        Arrays.fill(killerMoves, -1);  // empty slot; 0 would match column 0
+        this.historyHeuristic = new int[board.getCols()][2];
     }
 
     // =====================================================================
     // METHOD 1: ROOT SEARCH WITH GREEDY WIN/BLOCK
     // DP algorithm: Early termination - avoid full search when win/block exists.
+    // Node-limited variant deepens 1..depth and keeps the last completed depth;
+    // a stopped fixed-depth search returns the heuristic ordering's first move.
     // TIME COMPLEXITY: O(R*C^2) win/block + O(C * minimaxMemo) for root moves
     // =====================================================================
 
     public int findBestMoveHard(char player, int depth) {
-        clearCache();
+        nodeLimit = NO_NODE_LIMIT;
+        return searchRoot(player, depth);
+    }
+
+    /**
+     * Node-budgeted search: iterative deepening up to depth that stops
+     * deterministically after maxNodes minimaxMemo nodes (see getNodesSearched).
+     * Runs serially so identical inputs (position, budget and the caches left by
+     * earlier searches) always cost and return the same.
+     */
+    public int findBestMoveHard(char player, int depth, long maxNodes) {
+        if (maxNodes < 1)
+            throw new IllegalArgumentException("maxNodes must be >= 1: " + maxNodes);
+        nodeLimit = maxNodes;
+        return searchRoot(player, depth);
+    }
+
+    /** Endgame table probed at every minimaxMemo node it covers (null = none). */
+    public void setEndgameTable(EndgameTable table) {
+        this.endgameTable = table;
+    }
+
+    /**
+     * Makes a running findBestMoveHard (any thread) return early; the fixed-depth
+     * search then returns the move ordering's first (heuristic) move. Sticky: later
+     * searches also stop until clearStop().
+     */
+    public void stopSearch() {
+        stopRequested.set(true);
+    }
+
+    public void clearStop() {
+        stopRequested.set(false);
+    }
+
+    /** Search nodes visited by the last findBestMoveHard call, including forked tasks. */
+    public long getNodesSearched() {
+        return nodes + forkedNodes.sum();
+    }
+
+    /** Statistics of the last findBestMoveHard call, including forked tasks. */
+    public SearchStats getLastSearchStats() {
+        return lastStats;
+    }
+
+    /**
+     * Best root score of the last completed depth, side to move's view; NO_SCORE if
+     * none completed or the move was a forced block. A forced win or loss scores
+     * +-(WIN_SCORE + depth - plies), depth = getLastSearchStats().getDepthReached().
+     */
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    private int searchRoot(char player, int depth) {
+        // Caches persist across moves (cleared by clearCache on a new game)
+        transpositionTable.newSearch();
+        ageHistory();
+        ttProbes = ttHits = ttCutoffs = betaCutoffs = firstMoveCutoffs = 0;
+        nodes = 0;
+        nodeLimitHit = false;
+        forkedNodes.reset();
+        forkedCounters.reset();
+        depthReached = 0;
+        lastScore = NO_SCORE;
+        long start = System.nanoTime();
+        try {
+            return searchMoves(player, depth);
+        } finally {
+            long total = getNodesSearched();
+            ForkedCounters f = forkedCounters;
+            lastStats = new SearchStats(total, System.nanoTime() - start, depthReached,
+                    ttProbes + f.ttProbes, ttHits + f.ttHits, ttCutoffs + f.ttCutoffs,
+                    betaCutoffs + f.betaCutoffs, firstMoveCutoffs + f.firstMoveCutoffs,
+                    SearchStats.branchingFactor(total, depthReached));
+        }
+    }
+
+    private int searchMoves(char player, int depth) {
         char opp = (player == 'R') ? 'Y' : 'R';
 
         int win = tryImmediateWin(player);
-        if (win != -1) return win;
+        if (win != -1) {
+            lastScore = WIN_SCORE - 1;  // wins in 1 ply at depth 0
+            return win;
+        }
 
         int block = tryImmediateWin(opp);
         if (block != -1) return block;
 
-        int cols = board.getCols();
         int searchDepth = Math.max(1, depth);
-        List<Integer> moves = dnc.findValidMovesDnC(0, cols - 1);
-        if (moves.isEmpty()) return -1;
+        int[] moves = moveBuffers[board.getMoveCount()];
+        int count = dnc.findValidMoves(moves);
+        if (count == 0) return -1;
+
+        orderMovesByHeuristic(moves, count, player);
+        if (nodeLimit == NO_NODE_LIMIT) {
+            int[] scores = !parallelEnabled()
+                    ? scoreRootMoves(player, moves, count, searchDepth)
+                    : forkJoinPool.invoke(ForkJoinTask.adapt(() -> scoreRootMoves(player, moves, count, searchDepth)));
+            // Stopped: scores of aborted subtrees are 0, so fall back to the heuristic's first move
+            if (isAborted()) return moves[0];
+            depthReached = searchDepth;
+            lastScore = maxScore(scores, count);
+            return chooseRootMove(moves, count, scores);
+        }
 
-        orderMovesByHeuristic(moves, player);
-        int best = moves.get(0);
+        int best = moves[0];
+        for (int d = 1; d <= searchDepth; d++) {
+            int[] scores = scoreRootMoves(player, moves, count, d);
+            if (nodeLimitHit) break;  // budget spent: keep the last completed depth
+            best = chooseRootMove(moves, count, scores);
+            depthReached = d;
+            lastScore = maxScore(scores, count);
+        }
+        return best;
+    }
+
+    private static int maxScore(int[] scores, int count) {
+        int max = scores[0];
+        for (int i = 1; i < count; i++) max = Math.max(max, scores[i]);
+        return max;
+    }
+
+    /** Highest score wins; ties go to the column nearest the center. */
+    private int chooseRootMove(int[] moves, int count, int[] scores) {
+        int best = moves[0];
         int maxScore = Integer.MIN_VALUE;
-        int center = cols / 2;
+        int center = board.getCols() / 2;
 
-        for (int col : moves) {
-            board.insertDisc(col, player);
-            int score = minimaxMemo(player, searchDepth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
-            board.removeDisc(col);
+        for (int i = 0; i < count; i++) {
+            int col = moves[i];
+            int score = scores[i];
             if (score > maxScore) {
                 maxScore = score;
                 best = col;
@@ -103,6 +258,7 @@ public class DynamicProgrammingAlgorithms {
             Math.abs(a - board.getCols() / 2),
             Math.abs(b - board.getCols() / 2)));
         int result = tryImmediateWinStack(player, cols, 0);
+        if (winMoveCache.size() >= MAX_CACHE_SIZE) winMoveCache.clear();
         winMoveCache.put(key, result);
         return result;
     }
@@ -112,234 +268,117 @@ public class DynamicProgrammingAlgorithms {
         int col = cols.get(idx);
         if (col < 0 || col >= board.getCols() || !board.isValidMove(col))
             return tryImmediateWinStack(player, cols, idx + 1);
-        board.insertDisc(col, player);
-        boolean wins = dnc.checkWin(player);
-        board.removeDisc(col);
-        if (wins) return col;
+        if (board.isWinningMove(col, player)) return col;
         return tryImmediateWinStack(player, cols, idx + 1);
     }
 
     // =====================================================================
     // METHOD 3: ZOBRIST HASHING
     // DP algorithm: Fast state fingerprint for memoization key.
-    // TIME COMPLEXITY: O(R * C)
+    // Board XORs keys in/out on every insert/remove, so this is a field read.
+    // TIME COMPLEXITY: O(1)
     // =====================================================================
 
     private long computeZobristHash() {
-        long hash = 0;
-        char[][] g = board.getBoard();
-        int rows = board.getRows();
-        int cols = board.getCols();
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                char cell = g[r][c];
-                if (cell == ' ') continue;
-                int idx = r * cols + c;
-                int p = (cell == 'R') ? 1 : 2;
-                hash ^= zobristTable[idx][p];
-            }
-        }
-        return hash;
-    }
-
-    private long[][] initZobristTable() {
-        Random r = new Random(42);
-        long[][] table = new long[board.getRows() * board.getCols()][3];
-        for (int i = 0; i < table.length; i++)
-            for (int j = 0; j < 3; j++)
-                table[i][j] = r.nextLong();
-        return table;
+        return board.getZobristHash();
     }
 
     // =====================================================================
-    // METHOD 4: EVALUATION MEMOIZATION
-    // DP algorithm: Cache heuristic scores; avoid recomputing same position.
-    // TIME COMPLEXITY: O(1) on cache hit; O(R*C) on cache miss
+    // METHOD 4: INCREMENTAL EVALUATION
+    // DP algorithm: the board keeps per-line disc counts and their summed value
+    // up to date on every insert/remove (a running total over subproblems), so
+    // a leaf is scored without rescanning and nothing needs to be cached.
+    // TIME COMPLEXITY: O(1)
     // =====================================================================
 
-    public int evaluateCached(char player) {
-        long hash = computeZobristHash();
-        Integer cached = evaluationCache.get(hash);
-        if (cached != null) {
-            cacheHits++;
-            return cached;
-        }
-        cacheMisses++;
-        int score = dnc.evaluatePositionDnC(player);
-        if (evaluationCache.size() >= MAX_CACHE_SIZE) {
-            evictEvaluationCache();
-        }
-        evaluationCache.put(hash, score);
-        return score;
-    }
-
-    /**
-     * Full cache reset when full. Distinct from evictOldEntries (depth-based partial eviction).
-     */
-    private void evictEvaluationCache() {
-        evaluationCache.clear();
+    public int evaluateIncremental(char player) {
+        return board.evaluate(player);
     }
 
     // =====================================================================
     // METHOD 5: TRANSPOSITION TABLE LOOKUP
     // DP algorithm: Retrieve cached minimax result with bound types.
+    // Entry is a packed primitive long (see TranspositionTable); 0 = miss.
     // TIME COMPLEXITY: O(1)
     // =====================================================================
 
-    private Integer lookupTransposition(long hash, int depth, int alpha, int beta) {
-        TTEntry entry = transpositionTable.get(hash);
-        if (entry == null) return null;
-        if (entry.depth < depth) return null;
-        cacheHits++;
-        if (entry.flag == EXACT) return entry.score;
-        if (entry.flag == LOWER) {
-            if (entry.score >= beta) return entry.score;
-            return null;
-        }
-        if (entry.flag == UPPER) {
-            if (entry.score <= alpha) return entry.score;
-            return null;
+    /** Returns the usable cached score for this window, or TT_MISS. */
+    private int lookupTransposition(long entry, int depth, int alpha, int beta) {
+        ttProbes++;
+        if (entry == 0L) return TT_MISS;
+        ttHits++;
+        if (TranspositionTable.depthOf(entry) < depth) return TT_MISS;
+        int score = rebaseWinScore(TranspositionTable.scoreOf(entry), depth);
+        int flag = TranspositionTable.flagOf(entry);
+        if (flag == EXACT
+                || (flag == LOWER && score >= beta)
+                || (flag == UPPER && score <= alpha)) {
+            ttCutoffs++;
+            return score;
         }
-        return null;
+        return TT_MISS;
     }
 
     // =====================================================================
-    // METHOD 6: TRANSPOSITION TABLE STORAGE + EVICTION
-    // DP algorithm: Store results for overlapping subproblems; evict when full.
-    // TIME COMPLEXITY: O(1) for store; O(k) for evictOldEntries
-    // =====================================================================
-
-    private void storeTransposition(long hash, int depth, int score, int flag) {
-        int size = transpositionTable.size();
-        if (size >= MAX_CACHE_SIZE) {
-            evictOldEntries();
-        }
-        TTEntry e = new TTEntry(score, depth, flag, 0);
-        transpositionTable.put(hash, e);
-    }
-
-    private void evictOldEntries() {
-        int size = transpositionTable.size();
-        if (size < MAX_CACHE_SIZE) return;
-        int remove = Math.max(1, size / 4);
-        List<Map.Entry<Long, TTEntry>> entries = new ArrayList<>(transpositionTable.entrySet());
-        entries.sort((a, b) -> Integer.compare(a.getValue().depth, b.getValue().depth));
-        for (int i = 0; i < remove && i < entries.size(); i++) {
-            transpositionTable.remove(entries.get(i).getKey());
-        }
-    }
-
-    // =====================================================================
-    // METHOD 7: MOVE ORDERING BY HEURISTIC (KILLER + HISTORY + CENTER)
-    // DP algorithm: Memoization - cache move ordering per board state; reuse when
-    // same position reached from different move orders (overlapping subproblems).
-    // TIME COMPLEXITY: O(1) on cache hit; O(C log C) on miss
+    // METHOD 6: TRANSPOSITION TABLE STORAGE
+    // DP algorithm: Store results for overlapping subproblems. Fixed-size
+    // buckets replace in place (depth-preferred + always-replace slot), so
+    // there is no eviction pass and no allocation during search.
+    // TIME COMPLEXITY: O(1)
     // =====================================================================
 
-    private void orderMovesByHeuristic(List<Integer> moves, char currentPlayer) {
-        long hash = computeZobristHash();
-        List<Integer> cachedOrder = moveOrderCache.get(hash);
-        if (cachedOrder != null) {
-            moves.sort((a, b) -> {
-                int ia = cachedOrder.indexOf(a);
-                int ib = cachedOrder.indexOf(b);
-                if (ia < 0) ia = Integer.MAX_VALUE;
-                if (ib < 0) ib = Integer.MAX_VALUE;
-                return Integer.compare(ia, ib);
-            });
-            return;
-        }
-
-        int cols = board.getCols();
-        int center = cols / 2;
-        char opponent = (currentPlayer == 'R') ? 'Y' : 'R';
-        moves.sort((a, b) -> {
-            int threatA = getThreatScore(a, currentPlayer);
-            int threatB = getThreatScore(b, currentPlayer);
-            if (threatA != threatB) return threatB - threatA;
-            int blockA = getBlockScore(a, currentPlayer, opponent);
-            int blockB = getBlockScore(b, currentPlayer, opponent);
-            if (blockA != blockB) return blockB - blockA;
-            int killerA = getKillerPriority(a);
-            int killerB = getKillerPriority(b);
-            if (killerA != killerB) return killerB - killerA;
-            int histA = getHistoryScore(a);
-            int histB = getHistoryScore(b);
-            if (histA != histB) return histB - histA;
-            return Integer.compare(Math.abs(a - center), Math.abs(b - center));
-        });
-        moveOrderCache.put(hash, new ArrayList<>(moves));
-    }
-
-    private int getThreatScore(int col, char player) {
-        if (!board.isValidMove(col)) return 0;
-        board.insertDisc(col, player);
-        int score = dnc.checkWin(player) ? 100 : (hasThreat(player) ? 50 : 0);
-        board.removeDisc(col);
-        return score;
+    private void storeTransposition(long hash, int depth, int score, int flag, int bestMove) {
+        transpositionTable.store(hash, depth, rebaseWinScore(score, depth), flag, bestMove);
     }
 
-    private int getBlockScore(int col, char currentPlayer, char opponent) {
-        if (!board.isValidMove(col)) return 0;
-        int row = board.insertDisc(col, currentPlayer);
-        if (row < 0) return 0;
-        int score = blocksOpponent(row, col, opponent) ? 80 : 0;
-        board.removeDisc(col);
+    /**
+     * Win scores encode the remaining depth (WIN_SCORE + depth), which differs between
+     * transpositions and between searches. Stored as plies-to-win, re-based to the
+     * probing node's depth on lookup (as in BacktrackingAlgorithms); self-inverse.
+     */
+    private int rebaseWinScore(int score, int depth) {
+        if (score >= WIN_SCORE - 2 * maxPly) return 2 * WIN_SCORE + depth - score;
+        if (score <= -WIN_SCORE + 2 * maxPly) return -2 * WIN_SCORE - depth - score;
         return score;
     }
 
-    private boolean hasThreat(char player) {
-        char[][] g = board.getBoard();
-        int rows = board.getRows(), cols = board.getCols();
-        int[][] dirs = {{0,1},{1,0},{1,1},{1,-1}};
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                if (g[r][c] != player) continue;
-                for (int[] d : dirs) {
-                    int count = countInDirection(r, c, d[0], d[1], player);
-                    if (count >= 3) return true;
-                }
-            }
-        }
-        return false;
-    }
+    // =====================================================================
+    // METHOD 7: MOVE ORDERING BY HEURISTIC (THREATS + KILLER + HISTORY + CENTER)
+    // Score once: each move's key comes from Board's threat queries (win, creates
+    // a threat, blocks the opponent's threat cell), then killer, history and
+    // center; a stable insertion sort orders at most C entries. Cheaper than
+    // looking an order up in a cache, so none is kept.
+    // TIME COMPLEXITY: O(C^2), no board mutation, no allocation
+    // =====================================================================
 
-    /**
-     * Explicit 3-cell check: verify each of 3 consecutive cells in fwd/bwd direction.
-     * Distinct from Backtracking's window-based scoreBlockAt.
-     */
-    private boolean blocksOpponent(int row, int col, char opponent) {
-        char[][] g = board.getBoard();
-        int rows = board.getRows(), cols = board.getCols();
-        int[][] dirs = {{0,1},{1,0},{1,1},{1,-1}};
-        for (int[] d : dirs) {
-            if (hasThreeConsecutive(g, row + d[0], col + d[1], d[0], d[1], opponent, rows, cols))
-                return true;
-            if (hasThreeConsecutive(g, row - d[0], col - d[1], -d[0], -d[1], opponent, rows, cols))
-                return true;
+    private void orderMovesByHeuristic(int[] moves, int count, char currentPlayer) {
+        long[] keys = orderKeys[board.getMoveCount()];
+        int center = board.getCols() / 2;
+        for (int i = 0; i < count; i++) {
+            int col = moves[i];
+            int t = board.moveThreats(col, currentPlayer);
+            int threat = (t & Board.WINS) != 0 ? 100 : (t & Board.NEW_THREATS) != 0 ? 50 : 0;
+            int block = (t & Board.BLOCKS) != 0 ? 80 : 0;
+            keys[i] = orderKey(threat, block, getKillerPriority(col), getHistoryScore(col), Math.abs(col - center));
         }
-        return false;
-    }
-
-    private boolean hasThreeConsecutive(char[][] g, int r, int c, int dr, int dc, char p, int rows, int cols) {
-        for (int i = 0; i < 3; i++) {
-            int nr = r + i * dr, nc = c + i * dc;
-            if (nr < 0 || nr >= rows || nc < 0 || nc >= cols || g[nr][nc] != p) return false;
+        for (int i = 1; i < count; i++) {
+            int col = moves[i];
+            long key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] < key) {
+                moves[j + 1] = moves[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            moves[j + 1] = col;
+            keys[j + 1] = key;
         }
-        return true;
     }
 
-    private int countInDirection(int r, int c, int dr, int dc, char player) {
-        char[][] g = board.getBoard();
-        int rows = board.getRows(), cols = board.getCols();
-        int count = 0;
-        for (int i = 0; i < 4; i++) {
-            int nr = r + i * dr, nc = c + i * dc;
-            if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) break;
-            if (g[nr][nc] == player) count++;
-            else break;
-        }
-        return count;
+    // Lexicographic key in one long: threat | block | killer | history | center (nearer = higher)
+    private static long orderKey(int threat, int block, int killer, int history, int centerDistance) {
+        return ((long) threat << 52) | ((long) block << 45) | ((long) killer << 34)
+                | ((long) Math.min(history, (1 << 30) - 1) << 4) | (15 - centerDistance);
     }
 
     private int getKillerPriority(int col) {
@@ -349,7 +388,23 @@ public class DynamicProgrammingAlgorithms {
     }
 
     private int getHistoryScore(int col) {
-        return (col >= 0 && col < 7) ? historyHeuristic[col][0] + historyHeuristic[col][1] : 0;
+        return (col >= 0 && col < historyHeuristic.length) ? historyHeuristic[col][0] + historyHeuristic[col][1] : 0;
+    }
+
+    // Cutoff move at this ply (moves played from the start of the game)
+    private void recordKiller(int col, int ply) {
+        if (ply >= 0 && ply < killerMoves.length) killerMoves[ply] = col;
+    }
+
+    private void recordHistory(int col, char player, int depth) {
+        if (col >= 0 && col < historyHeuristic.length)
+            historyHeuristic[col][player == 'R' ? 0 : 1] += (1 << Math.min(depth, 10));
+    }
+
+    // Halve history at each search so old cutoffs guide, but don't dominate
+    private void ageHistory() {
+        for (int[] row : historyHeuristic)
+            for (int i = 0; i < row.length; i++) row[i] >>= 1;
     }
 
     // =====================================================================
@@ -360,76 +415,262 @@ public class DynamicProgrammingAlgorithms {
     // =====================================================================
 
     public int minimaxMemo(char player, int depth, int alpha, int beta, boolean isMax) {
+        if (isAborted() || limitReached()) return 0;
         char opp = (player == 'R') ? 'Y' : 'R';
-        long hash = computeZobristHash();
-
-        Integer cached = lookupTransposition(hash, depth, alpha, beta);
-        if (cached != null) return cached;
-        cacheMisses++;
-
-        if (dnc.checkWin(player)) return WIN_SCORE + depth;
-        if (dnc.checkWin(opp)) return -WIN_SCORE - depth;
+        long hash = computeZobristHash() ^ (player == 'R' ? 0L : ROOT_Y_KEY);
+
+        long entry = transpositionTable.probe(hash);
+        int cached = lookupTransposition(entry, depth, alpha, beta);
+        if (cached != TT_MISS) return cached;
+
+        // Only the side that just moved can have won: opp if it is our turn (isMax)
+        if (board.lastMoveWins()) return isMax ? -WIN_SCORE - depth : WIN_SCORE + depth;
+        if (endgameTable != null) {
+            int exact = endgameTable.probe(board, isMax ? player : opp);
+            if (exact != OpeningBook.NOT_FOUND) {
+                int value = EndgameTable.searchScore(exact, board.getMoveCount(), WIN_SCORE, depth);
+                return isMax ? value : -value;
+            }
+        }
         if (board.isBoardFull() || depth <= 0) {
-            int eval = evaluateCached(player);
-            storeTransposition(hash, depth, eval, EXACT);
+            int eval = evaluateIncremental(player);
+            storeTransposition(hash, depth, eval, EXACT, -1);
             return eval;
         }
 
-        List<Integer> moves = dnc.findValidMovesDnC(0, board.getCols() - 1);
+        int[] moves = moveBuffers[board.getMoveCount()];
+        int count = dnc.findValidMoves(moves);
         char currentPlayer = isMax ? player : opp;
-        orderMovesByHeuristic(moves, currentPlayer);
-
-        int score;
-        if (isMax) {
-            int maxEval = Integer.MIN_VALUE;
-            for (int col : moves) {
-                board.insertDisc(col, player);
-                int eval = minimaxMemo(player, depth - 1, alpha, beta, false);
-                board.removeDisc(col);
-                maxEval = Math.max(maxEval, eval);
-                alpha = Math.max(alpha, eval);
-                if (beta <= alpha) break;
+        orderMovesByHeuristic(moves, count, currentPlayer);
+        promoteHashMove(moves, count, TranspositionTable.moveOf(entry));
+
+        int alphaOrig = alpha, betaOrig = beta;
+        int score = isMax ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestMove = moves[0];
+        for (int i = 0; i < count; i++) {
+            if (i == 1 && canSplit(depth)) {
+                // Eldest brother searched; the rest run in parallel against its bound
+                SplitPoint sp = searchSiblingsParallel(player, depth, alpha, beta, isMax, moves, count, score, bestMove);
+                if (isAborted()) return 0;
+                score = sp.best;
+                bestMove = sp.bestMove;
+                break;
             }
-            score = maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            for (int col : moves) {
-                board.insertDisc(col, opp);
-                int eval = minimaxMemo(player, depth - 1, alpha, beta, true);
-                board.removeDisc(col);
-                minEval = Math.min(minEval, eval);
+            int col = moves[i];
+            board.insertDisc(col, currentPlayer);
+            int eval = minimaxMemo(player, depth - 1, alpha, beta, !isMax);
+            board.removeDisc(col);
+            if (isAborted()) return 0;
+            if (isMax) {
+                if (eval > score) { score = eval; bestMove = col; }
+                alpha = Math.max(alpha, eval);
+            } else {
+                if (eval < score) { score = eval; bestMove = col; }
                 beta = Math.min(beta, eval);
-                if (beta <= alpha) break;
             }
-            score = minEval;
+            if (beta <= alpha) {
+                betaCutoffs++;
+                if (i == 0) firstMoveCutoffs++;
+                recordKiller(col, board.getMoveCount());
+                recordHistory(col, currentPlayer, depth);
+                break;
+            }
         }
 
-        int flag = (score <= alpha) ? UPPER : (score >= beta) ? LOWER : EXACT;
-        storeTransposition(hash, depth, score, flag);
+        // Bound type is judged against the window this node was called with
+        int flag = (score <= alphaOrig) ? UPPER : (score >= betaOrig) ? LOWER : EXACT;
+        storeTransposition(hash, depth, score, flag, bestMove);
         return score;
     }
 
+    /** Try the move that was best last time this position was searched first. */
+    private void promoteHashMove(int[] moves, int count, int hashMove) {
+        if (hashMove < 0) return;
+        for (int i = 1; i < count; i++) {
+            if (moves[i] != hashMove) continue;
+            System.arraycopy(moves, 0, moves, 1, i);
+            moves[0] = hashMove;
+            return;
+        }
+    }
+
     // ---------------------------------------------------------------------
     // Cache management (used by methods above)
+    // All caches survive between moves; each is bounded (TT by size, maps by
+    // MAX_CACHE_SIZE). clearCache is for a new game.
     // ---------------------------------------------------------------------
 
     public void clearCache() {
         transpositionTable.clear();
-        evaluationCache.clear();
         winMoveCache.clear();
-        moveOrderCache.clear();
         Arrays.fill(killerMoves, -1);
         for (int[] row : historyHeuristic) Arrays.fill(row, 0);
-        cacheHits = cacheMisses = 0;
     }
 
-    private static class TTEntry {
-        int score, depth, flag, bestMove;
-        TTEntry(int score, int depth, int flag, int bestMove) {
-            this.score = score;
-            this.depth = depth;
-            this.flag = flag;
+    // ---------------------------------------------------------------------
+    // Parallel search: fork-join Young Brothers Wait
+    // The eldest child of a node is searched serially to establish a bound;
+    // the younger brothers are then forked as tasks, each on its own board
+    // copy with its own engine, sharing the transposition table. Bounds are
+    // propagated through the SplitPoint; a cutoff cancels the siblings and
+    // everything below them.
+    // ---------------------------------------------------------------------
+
+    /** Threads for the Moderate search; 1 = serial (the default). */
+    public void setParallelism(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be >= 1: " + threads);
+        if (forkJoinPool != null) forkJoinPool.shutdownNow();
+        forkJoinPool = (threads > 1) ? new ForkJoinPool(threads) : null;
+    }
+
+    /** Nodes with at least this much remaining depth split their younger brothers into tasks. */
+    public void setSplitDepth(int depth) {
+        if (depth < 1)
+            throw new IllegalArgumentException("split depth must be >= 1: " + depth);
+        this.splitDepth = depth;
+    }
+
+    /** Node-limited searches stay serial so their node counts are reproducible. */
+    private boolean parallelEnabled() {
+        return forkJoinPool != null && nodeLimit == NO_NODE_LIMIT;
+    }
+
+    private boolean canSplit(int depth) {
+        return parallelEnabled() && depth >= splitDepth;
+    }
+
+    private boolean limitReached() {
+        if (++nodes < nodeLimit) return false;
+        nodeLimitHit = true;
+        return true;
+    }
+
+    private boolean isAborted() {
+        if (nodeLimitHit || stopRequested.get()) return true;
+        for (SplitPoint sp = activeSplit; sp != null; sp = sp.parent)
+            if (sp.cutoff) return true;
+        return false;
+    }
+
+    /** Root moves are independent full-window searches: eldest first, the rest in parallel. */
+    private int[] scoreRootMoves(char player, int[] moves, int count, int searchDepth) {
+        int[] scores = new int[count];
+        int first = moves[0];
+        board.insertDisc(first, player);
+        scores[0] = minimaxMemo(player, searchDepth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+        board.removeDisc(first);
+
+        if (!parallelEnabled()) {
+            for (int i = 1; i < count; i++) {
+                int col = moves[i];
+                board.insertDisc(col, player);
+                scores[i] = minimaxMemo(player, searchDepth - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+                board.removeDisc(col);
+            }
+            return scores;
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 1; i < count; i++) {
+            int idx = i;
+            DynamicProgrammingAlgorithms worker = forkWorker(moves[i], player, null);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                scores[idx] = worker.minimaxMemo(player, searchDepth - 1,
+                        Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+                forkedNodes.add(worker.nodes);
+                forkedCounters.add(worker);
+            }));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        return scores;
+    }
+
+    private SplitPoint searchSiblingsParallel(char player, int depth, int alpha, int beta,
+            boolean isMax, int[] moves, int count, int best, int bestMove) {
+        SplitPoint sp = new SplitPoint(activeSplit, isMax, alpha, beta, best, bestMove);
+        char mover = isMax ? player : ((player == 'R') ? 'Y' : 'R');
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 1; i < count; i++) {
+            int col = moves[i];
+            DynamicProgrammingAlgorithms worker = forkWorker(col, mover, sp);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                if (sp.isAborted()) return;
+                int eval = worker.minimaxMemo(player, depth - 1, sp.alpha, sp.beta, !isMax);
+                forkedNodes.add(worker.nodes);
+                forkedCounters.add(worker);
+                if (!sp.isAborted()) sp.report(eval, col);
+            }));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        return sp;
+    }
+
+    /** Engine for one forked child: board copy with col played, shared table and settings. */
+    private DynamicProgrammingAlgorithms forkWorker(int col, char mover, SplitPoint sp) {
+        Board copy = new Board(board);
+        copy.insertDisc(col, mover);
+        DynamicProgrammingAlgorithms worker =
+                new DynamicProgrammingAlgorithms(copy, new DivideAndConquerGreedy(copy), transpositionTable);
+        worker.forkJoinPool = forkJoinPool;
+        worker.splitDepth = splitDepth;
+        worker.forkedNodes = forkedNodes;
+        worker.forkedCounters = forkedCounters;
+        worker.stopRequested = stopRequested;
+        worker.endgameTable = endgameTable;
+        worker.activeSplit = (sp != null) ? sp : activeSplit;
+        return worker;
+    }
+
+    /** Search counters of finished forked tasks, merged under a lock. */
+    private static final class ForkedCounters {
+        long ttProbes, ttHits, ttCutoffs, betaCutoffs, firstMoveCutoffs;
+
+        synchronized void add(DynamicProgrammingAlgorithms worker) {
+            ttProbes += worker.ttProbes;
+            ttHits += worker.ttHits;
+            ttCutoffs += worker.ttCutoffs;
+            betaCutoffs += worker.betaCutoffs;
+            firstMoveCutoffs += worker.firstMoveCutoffs;
+        }
+
+        synchronized void reset() {
+            ttProbes = ttHits = ttCutoffs = betaCutoffs = firstMoveCutoffs = 0;
+        }
+    }
+
+    /** Shared window and best score of a node whose younger brothers run in parallel. */
+    private static final class SplitPoint {
+        final SplitPoint parent;
+        final boolean isMax;
+        volatile int alpha, beta;
+        volatile boolean cutoff;
+        int best, bestMove;
+
+        SplitPoint(SplitPoint parent, boolean isMax, int alpha, int beta, int best, int bestMove) {
+            this.parent = parent;
+            this.isMax = isMax;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.best = best;
             this.bestMove = bestMove;
         }
+
+        boolean isAborted() {
+            for (SplitPoint sp = this; sp != null; sp = sp.parent)
+                if (sp.cutoff) return true;
+            return false;
+        }
+
+        synchronized void report(int eval, int col) {
+            if (isMax) {
+                if (eval > best) { best = eval; bestMove = col; }
+                alpha = Math.max(alpha, eval);
+            } else {
+                if (eval < best) { best = eval; bestMove = col; }
+                beta = Math.min(beta, eval);
+            }
+            if (beta <= alpha) cutoff = true;
+        }
     }
 }
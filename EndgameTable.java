@@ -0,0 +1,77 @@
+/**
+ * EndgameTable.java
+ * Read-only, memory-mapped table of exact results for positions with at most
+ * K empty cells, built offline by EndgameTableBuilder.
+ *
+ * Same file layout as OpeningBook (magic 'C4EG'); the header ply field holds
+ * the minimum disc count covered (42 - K). Scores use PerfectPlaySolver's
+ * scale; searchScore converts them to an engine's win/loss scale.
+ */
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class EndgameTable {
+    static final int MAGIC = 0x43344547;
+
+    private final MappedByteBuffer entries;
+    private final int count;
+    private final int minPly;
+
+    private EndgameTable(MappedByteBuffer entries, int count, int minPly) {
+        this.entries = entries;
+        this.count = count;
+        this.minPly = minPly;
+    }
+
+    public static EndgameTable open(Path path) throws IOException {
+        MappedByteBuffer buf = OpeningBook.mapTable(path, MAGIC);
+        return new EndgameTable(buf, buf.getInt(12), buf.getInt(8));
+    }
+
+    /** Opens path if it exists, otherwise returns null. */
+    public static EndgameTable openIfPresent(Path path) throws IOException {
+        return Files.isRegularFile(path) ? open(path) : null;
+    }
+
+    /** Fewest discs on board for a position to be covered. */
+    public int getMinPly() {
+        return minPly;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // =====================================================================
+    // METHOD 1: PROBE
+    // Binary search over the mapped entries; positions outside the table's
+    // ply range are rejected before touching the file.
+    // TIME COMPLEXITY: O(log N), no allocation
+    // =====================================================================
+
+    /** Exact score of board with player to move, or OpeningBook.NOT_FOUND. */
+    public int probe(Board board, char player) {
+        if (board.getMoveCount() < minPly || !board.isStandardSize()) {
+            return OpeningBook.NOT_FOUND;
+        }
+        long key = OpeningBook.positionKey(board.getDiscMask(player), board.getOccupiedMask());
+        return OpeningBook.findScore(entries, count, key);
+    }
+
+    // =====================================================================
+    // METHOD 2: SCORE CONVERSION
+    // A win k plies away is scored as if the terminal node were found k
+    // plies below this one: winScore + depth - k (same as a searched win).
+    // TIME COMPLEXITY: O(1)
+    // =====================================================================
+
+    /** Engine score for the side to move, given an exact table score. */
+    public static int searchScore(int score, int moveCount, int winScore, int depth) {
+        if (score == 0) return 0;
+        int value = winScore + depth - PerfectPlaySolver.pliesToResult(score, moveCount);
+        return score > 0 ? value : -value;
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * EndgameTableBuilder.java
+ * Offline tool: retrograde analysis of every position with at most K empty
+ * cells reachable from a set of seed positions; writes an EndgameTable.
+ *
+ * Usage: java EndgameTableBuilder <K> [output file] [seed moves ...]
+ *   K          empty cells covered (positions with >= 42 - K discs)
+ *   output     default connect4.endgame
+ *   seed moves column digits (1-7) per seed; read one per line from stdin if
+ *              none are given. Seeds should be near the K boundary: all
+ *              positions between a seed and ply 42 - K are enumerated too.
+ *
+ * No search: the full-board level is a draw, and each earlier level is
+ * backed up from the one after it (immediate win, else max of -child).
+ */
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class EndgameTableBuilder {
+    private static final int CELLS = 42;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java EndgameTableBuilder <K> [output] [seed moves ...]");
+            System.exit(1);
+        }
+        int k = Integer.parseInt(args[0]);
+        Path out = Paths.get(args.length > 1 ? args[1] : "connect4.endgame");
+
+        List<String> seeds = new ArrayList<>(Arrays.asList(args).subList(Math.min(2, args.length), args.length));
+        if (seeds.isEmpty()) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+            for (String line; (line = in.readLine()) != null; ) {
+                if (!line.trim().isEmpty()) seeds.add(line.trim());
+            }
+        }
+
+        long start = System.nanoTime();
+        long[] entries = build(seeds, k);
+        OpeningBookBuilder.writeTable(out, EndgameTable.MAGIC, CELLS - k, entries);
+        System.out.printf("Wrote %d positions to %s in %.1f s%n",
+                entries.length, out, (System.nanoTime() - start) / 1e9);
+    }
+
+    // =====================================================================
+    // METHOD 1: BUILD
+    // Forward pass: seeds merged into sorted, deduplicated key levels and
+    // expanded ply by ply to the full board. Backward pass: level 42 is a
+    // draw; levels 41 .. 42-K are backed up from their children.
+    // TIME COMPLEXITY: O(P * C log P), P = positions enumerated
+    // =====================================================================
+
+    /** Sorted table entries for positions with at most k empty cells below the seeds. */
+    public static long[] build(List<String> seeds, int k) {
+        if (k < 1 || k > CELLS) throw new IllegalArgumentException("K must be in [1, 42]: " + k);
+        if (seeds.isEmpty()) throw new IllegalArgumentException("No seed positions");
+        int minPly = CELLS - k;
+
+        // Seed keys grouped by ply
+        long[][] seedKeys = new long[CELLS + 1][0];
+        int firstPly = CELLS;
+        for (String seed : seeds) {
+            Board b = new Board();
+            char player = 'R';
+            for (char c : seed.toCharArray()) {
+                int col = c - '1';
+                if (!b.isValidMove(col) || b.isWinningMove(col, player)) {
+                    throw new IllegalArgumentException("Bad or game-ending move in seed " + seed);
+                }
+                b.insertDisc(col, player);
+                player = (player == 'R') ? 'Y' : 'R';
+            }
+            int ply = b.getMoveCount();
+            long key = OpeningBook.positionKey(b.getDiscMask(player), b.getOccupiedMask());
+            seedKeys[ply] = Arrays.copyOf(seedKeys[ply], seedKeys[ply].length + 1);
+            seedKeys[ply][seedKeys[ply].length - 1] = key;
+            firstPly = Math.min(firstPly, ply);
+        }
+
+        long[][] levels = new long[CELLS + 1][];
+        long[] level = new long[0];
+        for (int ply = Math.min(firstPly, minPly); ply <= CELLS; ply++) {
+            long[] next = OpeningBookBuilder.expand(level);
+            long[] merged = Arrays.copyOf(next, next.length + seedKeys[ply].length);
+            System.arraycopy(seedKeys[ply], 0, merged, next.length, seedKeys[ply].length);
+            level = OpeningBookBuilder.sortUnique(merged, merged.length);
+            if (ply >= minPly) {
+                levels[ply] = level;
+                System.out.printf("ply %d: %d positions%n", ply, level.length);
+            }
+        }
+
+        byte[][] scores = new byte[CELLS + 1][];
+        scores[CELLS] = new byte[levels[CELLS].length];  // full board, no winner: draw
+        int total = 0;
+        for (int ply = CELLS - 1; ply >= minPly; ply--) {
+            scores[ply] = OpeningBookBuilder.backUp(levels[ply], ply, levels[ply + 1], scores[ply + 1]);
+            total += levels[ply].length;
+        }
+
+        long[] entries = new long[total];
+        int n = 0;
+        for (int ply = minPly; ply < CELLS; ply++) {
+            for (int i = 0; i < levels[ply].length; i++) {
+                entries[n++] = (levels[ply][i] << 8) | (scores[ply][i] & 0xFF);
+            }
+        }
+        Arrays.sort(entries);
+        return entries;
+    }
+}
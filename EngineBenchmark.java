@@ -0,0 +1,185 @@
+/**
+ * EngineBenchmark.java
+ * Micro-benchmark harness for the engine hot paths over a fixed suite of
+ * opening, midgame and endgame positions.
+ *
+ * Usage: java EngineBenchmark [name filter] [warmup seconds] [measure seconds] [rows x cols]
+ *
+ * Each benchmark is warmed up, then run for the measurement time. Reported:
+ *   ops/s   throughput
+ *   us/op   average time per operation
+ *   B/op    bytes allocated per operation (ThreadMXBean, like JMH's gc.alloc.rate.norm)
+ *   MB/s    allocation rate
+ * Search benchmarks reset engine caches before every invocation, outside the
+ * timed and allocation-counted region, so each op is a cold search; they also
+ * print the last search's statistics (nodes, depth, effective branching factor).
+ * The size argument (e.g. 9x7, default 6x7) runs the same move sequences on a
+ * larger board to see how each engine scales with the branching factor.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class EngineBenchmark {
+
+    // Positions as column digits (1-7), Red first; none is decided yet
+    private static final String[][] POSITIONS = {
+        {"opening", "44"},
+        {"midgame", "4453553422"},
+        {"endgame", "2673565465325537452364376476"},
+    };
+
+    /** Operation under test; the result is consumed so it cannot be optimised away. */
+    private interface Op {
+        long run();
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sink;
+    private static int rows = Board.DEFAULT_ROWS;
+    private static int cols = Board.DEFAULT_COLS;
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        double warmup = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        double measure = args.length > 2 ? Double.parseDouble(args[2]) : 2.0;
+        if (args.length > 3) {
+            String[] size = args[3].toLowerCase().split("x");
+            rows = Integer.parseInt(size[0]);
+            cols = Integer.parseInt(size[1]);
+        }
+        System.out.printf("Board %dx%d%n", rows, cols);
+
+        System.out.printf("%-44s %14s %12s %12s %10s%n", "Benchmark", "ops/s", "us/op", "B/op", "MB/s");
+        for (String[] pos : POSITIONS) {
+            for (Bench b : suite(pos[0], pos[1])) {
+                if (!b.name.contains(filter)) continue;
+                b.run(warmup, measure);
+            }
+        }
+        if (sink == 42) System.out.println();  // keep results live
+    }
+
+    // =====================================================================
+    // METHOD 1: SUITE
+    // One benchmark per hot path per position. Each gets fresh engines on
+    // its own Board so runs do not share caches.
+    // =====================================================================
+
+    private static List<Bench> suite(String label, String moves) {
+        List<Bench> list = new ArrayList<>();
+        char toMove = (moves.length() % 2 == 0) ? 'R' : 'Y';
+
+        Board b1 = position(moves);
+        DivideAndConquerGreedy dnc = new DivideAndConquerGreedy(b1);
+        list.add(new Bench("dnc.checkWin:" + label, null, () -> dnc.checkWin('R') ? 1 : 0));
+        list.add(new Bench("dnc.findValidMovesDnC:" + label, null,
+                () -> dnc.findValidMovesDnC(0, b1.getCols() - 1).size()));
+        int[] moveBuffer = new int[b1.getCols()];
+        list.add(new Bench("dnc.findValidMoves:" + label, null, () -> dnc.findValidMoves(moveBuffer)));
+        list.add(new Bench("dnc.evaluatePositionDnC:" + label, null, () -> dnc.evaluatePositionDnC(toMove)));
+        list.add(new Bench("board.evaluate:" + label, null, () -> b1.evaluate(toMove)));
+
+        Board b2 = position(moves);
+        BacktrackingAlgorithms bt = new BacktrackingAlgorithms(b2, new DivideAndConquerGreedy(b2));
+        list.add(new Bench("backtracking.isSafeMove:" + label, null, () -> {
+            long n = 0;
+            for (int col = 0; col < b2.getCols(); col++)
+                if (b2.isValidMove(col) && bt.isSafeMove(toMove, col)) n++;
+            return n;
+        }));
+
+        Board b3 = position(moves);
+        DynamicProgrammingAlgorithms dp = new DynamicProgrammingAlgorithms(b3, new DivideAndConquerGreedy(b3));
+        list.add(new Bench("dp.minimaxMemo(d4):" + label, dp::clearCache,
+                () -> dp.minimaxMemo(toMove, 4, Integer.MIN_VALUE, Integer.MAX_VALUE, true)));
+
+        Board b4 = position(moves);
+        Connect4AI ai = new Connect4AI(b4);
+        ai.setOpeningBook(null);    // measure the engines, not the tables
+        ai.setEndgameTable(null);
+        list.add(new Bench("ai.findBestMove(EASY):" + label, ai::resetGame, () -> ai.findBestMove(toMove)));
+        list.add(new Bench("ai.findBestMove(MODERATE):" + label, ai::resetGame,
+                () -> ai.findBestMoveModerate(toMove), ai::getLastSearchStats));
+        list.add(new Bench("ai.findBestMove(HARD):" + label, ai::resetGame, () -> ai.findBestMoveHard(toMove),
+                ai::getLastSearchStats));
+        return list;
+    }
+
+    private static Board position(String moves) {
+        Board b = new Board(rows, cols);
+        char p = 'R';
+        for (char c : moves.toCharArray()) {
+            b.insertDisc(c - '1', p);
+            p = (p == 'R') ? 'Y' : 'R';
+        }
+        return b;
+    }
+
+    // =====================================================================
+    // METHOD 2: MEASUREMENT
+    // Without setup: ops run in batches that double until a batch takes
+    // ~10 ms, so timer and allocation-counter reads are amortised.
+    // With setup: every op is timed alone and setup is excluded.
+    // =====================================================================
+
+    private static final class Bench {
+        final String name;
+        final Runnable setup;  // per invocation; null = none
+        final Op op;
+        final Supplier<SearchStats> stats;  // stats of the last op; null = none
+
+        Bench(String name, Runnable setup, Op op) {
+            this(name, setup, op, null);
+        }
+
+        Bench(String name, Runnable setup, Op op, Supplier<SearchStats> stats) {
+            this.name = name;
+            this.setup = setup;
+            this.op = op;
+            this.stats = stats;
+        }
+
+        void run(double warmupSeconds, double measureSeconds) {
+            measure((long) (warmupSeconds * 1e9));
+            long[] r = measure((long) (measureSeconds * 1e9));
+            long ops = r[0], nanos = r[1], bytes = r[2];
+            double opsPerSec = ops * 1e9 / nanos;
+            double bytesPerOp = (double) bytes / ops;
+            System.out.printf("%-44s %14.1f %12.3f %12.1f %10.1f%n", name, opsPerSec,
+                    nanos / 1e3 / ops, bytesPerOp, bytesPerOp * opsPerSec / (1 << 20));
+            if (stats != null) {
+                SearchStats st = stats.get();
+                System.out.printf("    nodes=%d depth=%d ebf=%.2f firstMove=%.1f%%%n", st.getNodes(),
+                        st.getDepthReached(), st.getEffectiveBranchingFactor(), 100 * st.getFirstMoveCutoffRatio());
+            }
+        }
+
+        // Returns {ops, timed nanos, allocated bytes} for about budget nanos of work
+        private long[] measure(long budget) {
+            long tid = Thread.currentThread().getId();
+            long ops = 0, nanos = 0, bytes = 0;
+            long batch = 1;
+            while (nanos < budget) {
+                if (setup != null) setup.run();
+                long a0 = THREADS.getThreadAllocatedBytes(tid);
+                long t0 = System.nanoTime();
+                if (setup != null) {
+                    sink += op.run();
+                } else {
+                    for (long i = 0; i < batch; i++) sink += op.run();
+                }
+                long t = System.nanoTime() - t0;
+                bytes += THREADS.getThreadAllocatedBytes(tid) - a0;
+                nanos += t;
+                ops += (setup != null) ? 1 : batch;
+                if (setup == null && t < 10_000_000L) batch *= 2;
+            }
+            return new long[] {ops, nanos, bytes};
+        }
+    }
+}
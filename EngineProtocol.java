@@ -0,0 +1,323 @@
+/**
+ * EngineProtocol.java
+ * Headless engine over stdin/stdout, in the spirit of UCI: one command per
+ * line in, response lines out. Loads no AWT/Swing classes, so it starts fast
+ * and can run as a worker process behind a backend.
+ *
+ * Usage: java Main --engine   (or java EngineProtocol)
+ *
+ * Commands (columns are 1-based, as in EngineBenchmark's move strings):
+ *   hello                       -> id name Connect4, id protocol 1, hellook
+ *   isready                     -> readyok (answered at once, even while searching)
+ *   newgame [rows x cols]       clear engine caches; optional board size (default 6x7)
+ *   position [moves]            moves from the empty board, Red first: "4453" or
+ *                               "4 4 5 3"; on boards wider than 9 columns, always
+ *                               space-separated ("10" is one move in column 10)
+ *   go [easy|moderate|hard|perfect] [nodes N] [movetime MS]
+ *                               -> info depth D nodes N time MS nps X ebf F [score S]
+ *                               -> bestmove C ("bestmove none" once the game is over)
+ *       Level defaults to hard. nodes: deterministic budget (moderate or hard),
+ *       searched with that level's caches cleared, so repeatable whatever ran before;
+ *       movetime: anytime hard search. score is "cp N" (engine units), "win P" /
+ *       "loss P" (forced, P plies to the end), "draw" (proven), or absent (Easy,
+ *       forced block).
+ *   setoption threads N         search threads for moderate and hard
+ *   stop                        running hard search returns its last completed depth;
+ *                               moderate (fixed depth) its heuristic move at depth 0;
+ *                               perfect the legal column nearest the center, no score
+ *   quit                        stop, report the running search, exit (also at end of input)
+ *
+ * Searches run on one background thread so stop and isready are read while
+ * they run; every other command waits for the search to finish. A malformed
+ * command answers "error <message>" and changes nothing.
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class EngineProtocol {
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final ExecutorService searcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "engine-search");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> running;
+
+    private Board board = new Board();
+    private Connect4AI ai = new Connect4AI(board);
+    private int[] moves = new int[0];  // current position, 0-based columns
+    private int threads = 1;
+
+    public EngineProtocol(InputStream in, PrintStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        new EngineProtocol(System.in, System.out).run();
+    }
+
+    /** Reads commands until quit or end of input. */
+    public void run() throws IOException {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (!handle(line.split("\\s+"))) {
+                    ai.stopSearch();
+                    break;
+                }
+            }
+            waitForSearch();  // its bestmove is still reported
+        } finally {
+            searcher.shutdown();
+        }
+    }
+
+    // =====================================================================
+    // METHOD 1: COMMAND DISPATCH
+    // stop / isready / quit act at once; the rest wait for a running search.
+    // TIME COMPLEXITY: O(tokens) per command, plus the search for go
+    // =====================================================================
+
+    // Returns false on quit
+    private boolean handle(String[] t) {
+        switch (t[0]) {
+            case "isready":
+                send("readyok");
+                return true;
+            case "stop":
+                ai.stopSearch();
+                return true;
+            case "quit":
+                return false;
+            default:
+                break;
+        }
+        waitForSearch();
+        try {
+            switch (t[0]) {
+                case "hello":
+                    send("id name Connect4");
+                    send("id protocol 1");
+                    send("hellook");
+                    break;
+                case "newgame":
+                    newGame(t);
+                    break;
+                case "position":
+                    setPosition(t);
+                    break;
+                case "go":
+                    go(t);
+                    break;
+                case "setoption":
+                    setOption(t);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown command: " + t[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            send("error " + e.getMessage());
+        }
+        return true;
+    }
+
+    private void newGame(String[] t) {
+        if (t.length > 2) throw new IllegalArgumentException("usage: newgame [rows x cols]");
+        int rows = Board.DEFAULT_ROWS, cols = Board.DEFAULT_COLS;
+        if (t.length == 2) {
+            String[] size = t[1].toLowerCase(Locale.ROOT).split("x");
+            if (size.length != 2) throw new IllegalArgumentException("bad board size: " + t[1]);
+            rows = Integer.parseInt(size[0]);
+            cols = Integer.parseInt(size[1]);
+        }
+        if (rows != board.getRows() || cols != board.getCols()) {
+            Board b = new Board(rows, cols);  // throws before anything changes
+            board = b;
+            ai = new Connect4AI(b);
+            if (threads > 1) ai.setSearchThreads(threads);
+        } else {
+            ai.resetGame();
+            board.initializeBoard();
+        }
+        moves = new int[0];
+    }
+
+    private void setPosition(String[] t) {
+        int[] cols = parseMoves(t, 1, board.getCols());
+        try {
+            play(board, cols);
+            moves = cols;
+        } catch (IllegalArgumentException e) {
+            play(board, moves);  // restore the previous position
+            throw e;
+        }
+    }
+
+    /**
+     * 0-based columns from tokens t[from..]: one digit string ("4453") or one number
+     * per token. Boards wider than 9 columns always read one number per token.
+     */
+    static int[] parseMoves(String[] t, int from, int boardCols) {
+        int[] cols;
+        if (t.length - from == 1 && t[from].isEmpty()) {
+            cols = new int[0];  // blank line
+        } else if (t.length - from == 1 && boardCols <= 9) {
+            cols = new int[t[from].length()];
+            for (int i = 0; i < cols.length; i++) cols[i] = column(t[from].substring(i, i + 1));
+        } else {
+            cols = new int[Math.max(0, t.length - from)];
+            for (int i = 0; i < cols.length; i++) cols[i] = column(t[from + i]);
+        }
+        return cols;
+    }
+
+    private static int column(String token) {
+        try {
+            return Integer.parseInt(token) - 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad column: " + token);
+        }
+    }
+
+    /** Replays cols on board from empty, Red first; rejects illegal moves and moves after a win. */
+    static void play(Board board, int[] cols) {
+        board.initializeBoard();
+        char p = 'R';
+        for (int i = 0; i < cols.length; i++) {
+            int col = cols[i];
+            if (isGameOver(board))
+                throw new IllegalArgumentException("game is over before move " + (i + 1));
+            if (col < 0 || col >= board.getCols() || !board.isValidMove(col))
+                throw new IllegalArgumentException("illegal move " + (i + 1) + ": column " + (col + 1));
+            board.insertDisc(col, p);
+            p = (p == 'R') ? 'Y' : 'R';
+        }
+    }
+
+    static boolean isGameOver(Board board) {
+        return (board.getMoveCount() > 0 && board.lastMoveWins()) || board.isBoardFull();
+    }
+
+    private void setOption(String[] t) {
+        if (t.length != 3 || !t[1].equals("threads"))
+            throw new IllegalArgumentException("usage: setoption threads N");
+        int n = Integer.parseInt(t[2]);
+        ai.setSearchThreads(n);  // rejects n < 1
+        threads = n;
+    }
+
+    // =====================================================================
+    // METHOD 2: GO
+    // Parses level and budgets on the reader thread (errors answer at once),
+    // then searches on the background thread and reports info + bestmove.
+    // TIME COMPLEXITY: that of the chosen search
+    // =====================================================================
+
+    private void go(String[] t) {
+        GameDifficulty level = null;
+        long nodes = 0, movetime = 0;
+        for (int i = 1; i < t.length; i++) {
+            switch (t[i]) {
+                case "nodes":
+                    nodes = positive(t, ++i);
+                    break;
+                case "movetime":
+                    movetime = positive(t, ++i);
+                    break;
+                default:
+                    try {
+                        level = GameDifficulty.valueOf(t[i].toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("unknown go argument: " + t[i]);
+                    }
+            }
+        }
+        if (level == null) level = GameDifficulty.HARD;
+        if (nodes > 0 && movetime > 0)
+            throw new IllegalArgumentException("nodes and movetime are exclusive");
+        if (nodes > 0 && level != GameDifficulty.MODERATE && level != GameDifficulty.HARD)
+            throw new IllegalArgumentException("nodes needs moderate or hard");
+        if (movetime > 0 && level != GameDifficulty.HARD)
+            throw new IllegalArgumentException("movetime needs hard");
+        if (level == GameDifficulty.PERFECT && !board.isStandardSize())
+            throw new IllegalArgumentException("perfect needs a 6x7 board");
+
+        if (isGameOver(board)) {
+            send("bestmove none");
+            return;
+        }
+        char player = (board.getMoveCount() % 2 == 0) ? 'R' : 'Y';
+        GameDifficulty searchLevel = level;
+        long nodeBudget = nodes, timeBudget = movetime;
+        Connect4AI engine = ai;
+        int moveCount = board.getMoveCount();
+        engine.clearStop();
+        running = searcher.submit(() -> {
+            try {
+                long start = System.nanoTime();
+                Connect4AI.SearchResult r = nodeBudget > 0 ? engine.search(player, searchLevel, nodeBudget)
+                        : timeBudget > 0 ? engine.search(player, Duration.ofMillis(timeBudget))
+                        : engine.search(player, searchLevel);
+                report(r, moveCount, System.nanoTime() - start);
+            } catch (RuntimeException e) {
+                send("error search failed: " + e);
+            }
+        });
+    }
+
+    private static long positive(String[] t, int i) {
+        if (i >= t.length) throw new IllegalArgumentException(t[i - 1] + " needs a value");
+        long v = Long.parseLong(t[i]);
+        if (v < 1) throw new IllegalArgumentException(t[i - 1] + " must be >= 1: " + v);
+        return v;
+    }
+
+    private void report(Connect4AI.SearchResult r, int moveCount, long nanos) {
+        SearchStats s = r.stats;
+        StringBuilder sb = new StringBuilder("info");
+        sb.append(" depth ").append(s.getDepthReached())
+          .append(" nodes ").append(s.getNodes())
+          .append(" time ").append(nanos / 1_000_000)
+          .append(" nps ").append((long) s.getNodesPerSecond())
+          .append(" ebf ").append(String.format(Locale.ROOT, "%.2f", s.getEffectiveBranchingFactor()));
+        String score = r.scoreText(moveCount);
+        if (score != null) sb.append(" score ").append(score);
+        send(sb.toString());
+        send(r.move < 0 ? "bestmove none" : "bestmove " + (r.move + 1));
+    }
+
+    private void waitForSearch() {
+        if (running == null) return;
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            send("error search failed: " + e.getCause());
+        }
+        running = null;
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * GameDifficulty.java
+ * AI levels selectable in the UI and playable by TournamentRunner.
+ * Connect4AI.findBestMove(player, difficulty) dispatches on it.
+ */
+
+public enum GameDifficulty {
+    EASY("Easy", "D&C + Greedy"),
+    MODERATE("Moderate", "Dynamic Programming (Minimax + Memo)"),
+    HARD("Hard", "Backtracking (Iterative Deepening + PVS)"),
+    PERFECT("Perfect", "Perfect-play solver (+ opening book)");
+
+    public final String displayName;
+    public final String algorithms;
+
+    GameDifficulty(String displayName, String algorithms) {
+        this.displayName = displayName;
+        this.algorithms = algorithms;
+    }
+}
@@ -0,0 +1,425 @@
+/**
+ * GameServer.java
+ * Non-blocking TCP server hosting many concurrent human-vs-AI games in one JVM.
+ *
+ * Usage: java GameServer [port] [compute threads] [queue] [rows x cols]
+ *   port             TCP port on localhost (default 4444; 0 = any free port)
+ *   compute threads  AI search threads (default = available processors)
+ *   queue            searches that may wait for a thread (default 1024);
+ *                    beyond that a move (or new as Y) is refused with "error busy"
+ *   rows x cols      board size of every game (default 6x7)
+ *
+ * Protocol: one line per command / reply, columns 1-based (see EngineProtocol).
+ *   new [easy|moderate|hard|perfect] [R|Y]   start a game, human plays R (default)
+ *                                            or Y; default level hard -> ok (then
+ *                                            ai C if the human plays Y) or error busy
+ *   move C                                   human move -> ai C, or result ...
+ *   stats                                    -> stats sessions N active N games N aimoves N busy N
+ *   quit                                     close the session
+ * Replies: "ok", "ai C" (the AI's move), "result R|Y|draw" after the move
+ * that ends a game, "error <message>".
+ *
+ * One selector thread does all network I/O and owns every Session (its Board
+ * included). AI searches go to a bounded compute pool: each pool thread has
+ * its own Board + Connect4AI and copies the session's position into it, so
+ * the selector thread never blocks in findBestMove* and a session costs a
+ * Board and two small buffers, not an engine. While its search runs or its
+ * replies are unsent, a session is not read: TCP pushes back on the client.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class GameServer implements Closeable {
+
+    private static final int LINE_LIMIT = 128;   // longest command accepted
+    private static final int OUT_LIMIT = 1024;   // pending reply bytes before reads pause
+
+    /** One client connection and its game; touched only by the selector thread. */
+    private static final class Session {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(LINE_LIMIT);
+        final ByteBuffer out = ByteBuffer.allocate(OUT_LIMIT);
+        final Board board;
+        SelectionKey key;
+        GameDifficulty level;
+        char ai = ' ';          // AI's colour; ' ' = no game running
+        boolean searching;      // a search for this session is queued or running
+        boolean closing;        // close once out is flushed
+
+        Session(SocketChannel channel, int rows, int cols) {
+            this.channel = channel;
+            this.board = new Board(rows, cols);
+        }
+    }
+
+    /** Finished search, handed from a compute thread back to the selector thread. */
+    private static final class Reply {
+        final Session session;
+        final int move;  // -1 on failure
+        final String error;
+
+        Reply(Session session, int move, String error) {
+            this.session = session;
+            this.move = move;
+            this.error = error;
+        }
+    }
+
+    // One engine per compute thread, reused across sessions
+    private static final class Engine {
+        final Board board;
+        final Connect4AI ai;
+
+        Engine(int rows, int cols) {
+            board = new Board(rows, cols);
+            ai = new Connect4AI(board);
+        }
+    }
+
+    private final int rows, cols;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final ThreadPoolExecutor compute;
+    private final ThreadLocal<Engine> engines;
+    private final Queue<Reply> replies = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    // Counters, selector thread only (read by stats)
+    private long sessions, active, games, aiMoves, busyRefusals;
+
+    public GameServer(int port, int threads, int queue, int rows, int cols) throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1: " + threads);
+        new Board(rows, cols);  // validates the size
+        this.rows = rows;
+        this.cols = cols;
+        this.engines = ThreadLocal.withInitial(() -> new Engine(rows, cols));
+        this.compute = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue), r -> {
+                    Thread t = new Thread(r, "game-search");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 4444;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queue = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+        int rows = Board.DEFAULT_ROWS, cols = Board.DEFAULT_COLS;
+        if (args.length > 3) {
+            String[] size = args[3].toLowerCase(Locale.ROOT).split("x");
+            rows = Integer.parseInt(size[0]);
+            cols = Integer.parseInt(size[1]);
+        }
+        try (GameServer s = new GameServer(port, threads, queue, rows, cols)) {
+            System.out.printf("Listening on 127.0.0.1:%d (%dx%d, %d compute threads)%n",
+                    s.getPort(), rows, cols, threads);
+            s.run();
+        }
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /** Makes run() return (any thread); close() once it has, to release the sockets. */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+        compute.shutdownNow();
+        for (SelectionKey k : selector.keys()) k.channel().close();
+        selector.close();
+    }
+
+    // =====================================================================
+    // METHOD 1: SELECTOR LOOP
+    // Accept, read and write on one thread; finished searches arrive on
+    // the replies queue (with a selector wakeup) and are applied here too.
+    // TIME COMPLEXITY: O(ready keys + replies) per wakeup, O(1) per byte
+    // =====================================================================
+
+    /** Serves until stop(); call from one thread. */
+    public void run() throws IOException {
+        while (running) {
+            selector.select();
+            for (Reply r; (r = replies.poll()) != null; ) finishSearch(r);
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                try {
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) accept();
+                    else {
+                        Session s = (Session) key.attachment();
+                        if (key.isReadable()) read(s);
+                        else if (key.isWritable()) service(s);
+                    }
+                } catch (IOException e) {
+                    if (key.attachment() != null) drop((Session) key.attachment());
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        for (SocketChannel ch; (ch = server.accept()) != null; ) {
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true);
+            Session s = new Session(ch, rows, cols);
+            s.key = ch.register(selector, SelectionKey.OP_READ, s);
+            sessions++;
+            active++;
+        }
+    }
+
+    private void read(Session s) throws IOException {
+        if (s.channel.read(s.in) < 0) {
+            drop(s);
+            return;
+        }
+        service(s);
+    }
+
+    // Handles buffered lines while the session is idle and its replies fit, writes
+    // what it can, and repeats while a full write left room for more lines
+    private void service(Session s) throws IOException {
+        while (true) {
+            while (idle(s) && s.out.position() < OUT_LIMIT / 2) {
+                String line = nextLine(s);
+                if (line == null) break;
+                if (!line.isEmpty()) handle(s, line.split("\\s+"));
+            }
+            s.out.flip();
+            s.channel.write(s.out);
+            s.out.compact();
+            if (!idle(s) || s.out.position() > 0 || !hasLine(s.in)) break;
+        }
+        if (s.closing && s.out.position() == 0) {
+            drop(s);
+            return;
+        }
+        // Read only when idle with room for replies; write only while replies are pending
+        int ops = 0;
+        if (idle(s) && s.out.position() < OUT_LIMIT / 2) ops |= SelectionKey.OP_READ;
+        if (s.out.position() > 0) ops |= SelectionKey.OP_WRITE;
+        s.key.interestOps(ops);
+    }
+
+    private static boolean idle(Session s) {
+        return !s.searching && !s.closing;
+    }
+
+    // Next complete line from s.in (trimmed), or null if none is buffered yet
+    private String nextLine(Session s) {
+        ByteBuffer in = s.in;
+        for (int i = 0; i < in.position(); i++) {
+            if (in.get(i) != '\n') continue;
+            String line = new String(in.array(), 0, i, StandardCharsets.US_ASCII).trim();
+            in.flip();
+            in.position(i + 1);
+            in.compact();
+            return line;
+        }
+        if (!in.hasRemaining()) {
+            send(s, "error line too long");
+            s.closing = true;
+        }
+        return null;
+    }
+
+    private static boolean hasLine(ByteBuffer in) {
+        for (int i = 0; i < in.position(); i++)
+            if (in.get(i) == '\n') return true;
+        return false;
+    }
+
+    private void send(Session s, String line) {
+        if (s.out.remaining() < line.length() + 1) {  // client is not reading its replies
+            s.closing = true;
+            return;
+        }
+        for (int i = 0; i < line.length(); i++) s.out.put((byte) line.charAt(i));
+        s.out.put((byte) '\n');
+    }
+
+    private void drop(Session s) {
+        if (!s.key.isValid()) return;
+        s.key.cancel();
+        try {
+            s.channel.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+        active--;
+        // A search still running for s finishes into a closed session and is ignored
+    }
+
+    // =====================================================================
+    // METHOD 2: COMMANDS
+    // new / move / stats / quit on the selector thread; a move that leaves
+    // the AI to play submits a search and pauses the session until it ends.
+    // TIME COMPLEXITY: O(1) per command (win check O(1)); search is off-thread
+    // =====================================================================
+
+    private void handle(Session s, String[] t) {
+        try {
+            switch (t[0]) {
+                case "new":
+                    newGame(s, t);
+                    break;
+                case "move":
+                    move(s, t);
+                    break;
+                case "stats":
+                    send(s, String.format(Locale.ROOT, "stats sessions %d active %d games %d aimoves %d busy %d",
+                            sessions, active, games, aiMoves, busyRefusals));
+                    break;
+                case "quit":
+                    s.closing = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown command: " + t[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            send(s, "error " + e.getMessage());
+        }
+    }
+
+    private void newGame(Session s, String[] t) {
+        GameDifficulty level = GameDifficulty.HARD;
+        char human = 'R';
+        for (int i = 1; i < t.length; i++) {
+            String a = t[i].toUpperCase(Locale.ROOT);
+            if (a.equals("R") || a.equals("Y")) human = a.charAt(0);
+            else {
+                try {
+                    level = GameDifficulty.valueOf(a);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("unknown new argument: " + t[i]);
+                }
+            }
+        }
+        if (level == GameDifficulty.PERFECT && !s.board.isStandardSize())
+            throw new IllegalArgumentException("perfect needs a 6x7 board");
+        s.board.initializeBoard();
+        s.level = level;
+        s.ai = (human == 'R') ? 'Y' : 'R';
+        // The AI's reply is sent by the selector thread, so it always follows "ok"
+        if (s.ai == 'R' && !startSearch(s)) {
+            s.ai = ' ';  // refused ("error busy"): no game running, the client may resend new
+            return;
+        }
+        games++;
+        send(s, "ok");
+    }
+
+    private void move(Session s, String[] t) {
+        if (s.ai == ' ') throw new IllegalArgumentException("no game running; send new");
+        if (t.length != 2) throw new IllegalArgumentException("usage: move C");
+        char human = (s.ai == 'R') ? 'Y' : 'R';
+        if ((s.board.getMoveCount() % 2 == 0 ? 'R' : 'Y') != human)
+            throw new IllegalArgumentException("not your turn");
+        int col;
+        try {
+            col = Integer.parseInt(t[1]) - 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad column: " + t[1]);
+        }
+        if (col < 0 || col >= s.board.getCols() || !s.board.isValidMove(col))
+            throw new IllegalArgumentException("illegal move: " + t[1]);
+        s.board.insertDisc(col, human);
+        if (gameOver(s, human)) return;
+        if (!startSearch(s)) s.board.removeDisc(col);  // refused: the client may retry
+    }
+
+    // Reports and ends the game if the last disc (by player) won or filled the board
+    private boolean gameOver(Session s, char player) {
+        if (s.board.lastMoveWins()) send(s, "result " + player);
+        else if (s.board.isBoardFull()) send(s, "result draw");
+        else return false;
+        s.ai = ' ';
+        return true;
+    }
+
+    // =====================================================================
+    // METHOD 3: SEARCH DISPATCH
+    // The compute pool's queue is bounded: a full queue refuses the move
+    // ("error busy") instead of blocking the selector thread. The search
+    // copies the session's board into the thread's engine, so the session's
+    // Board is only read while the selector thread leaves it alone.
+    // TIME COMPLEXITY: O(R*C) copy + the search, on a compute thread
+    // =====================================================================
+
+    private boolean startSearch(Session s) {
+        char player = s.ai;
+        GameDifficulty level = s.level;
+        s.searching = true;
+        try {
+            compute.execute(() -> {
+                Reply r;
+                try {
+                    Engine e = engines.get();
+                    e.board.copyFrom(s.board);
+                    r = new Reply(s, e.ai.findBestMove(player, level), null);
+                } catch (RuntimeException ex) {
+                    r = new Reply(s, -1, String.valueOf(ex.getMessage()));
+                }
+                replies.add(r);
+                selector.wakeup();
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            s.searching = false;
+            busyRefusals++;
+            send(s, "error busy");
+            return false;
+        }
+    }
+
+    private void finishSearch(Reply r) {
+        Session s = r.session;
+        s.searching = false;
+        if (!s.key.isValid()) return;  // client left meanwhile
+        if (r.move < 0) {
+            send(s, "error search failed: " + r.error);
+            s.ai = ' ';
+        } else {
+            s.board.insertDisc(r.move, s.ai);
+            aiMoves++;
+            send(s, "ai " + (r.move + 1));
+            gameOver(s, s.ai);
+        }
+        try {
+            service(s);
+        } catch (IOException e) {
+            drop(s);
+        }
+    }
+}
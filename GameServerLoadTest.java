@@ -0,0 +1,306 @@
+/**
+ * GameServerLoadTest.java
+ * Local client harness for GameServer: many concurrent sessions playing
+ * random legal moves, driven by one NIO selector thread.
+ *
+ * Usage: java GameServerLoadTest [host:port | -] [sessions] [concurrent] [level] [games] [seed]
+ *   host:port   server to test; "-" (default) starts an embedded GameServer
+ *               on a free port with one compute thread per core
+ *   sessions    total sessions (default 5000); each connects, plays its games, quits
+ *   concurrent  sessions open at once (default 1000)
+ *   level       GameDifficulty the server plays (default EASY)
+ *   games       games per session (default 1); the client is Red
+ *   seed        RNG seed for the client's moves (default 1)
+ *
+ * Reports sessions/s, games/s, AI moves/s and AI reply latency percentiles
+ * (move sent -> "ai C" received, so network, queueing and search), plus the
+ * server's own counters from its stats command.
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Random;
+
+public class GameServerLoadTest {
+
+    /** One client session: its connection, its copy of the game and the pending request. */
+    private static final class Client {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(256);
+        final ByteBuffer out = ByteBuffer.allocate(64);
+        final Board board = new Board();
+        int gamesLeft;
+        int lastMove;   // client's last move, resent on "error busy"
+        long sentAt;    // nanoTime the last move was first sent
+        long retryAt;   // nanoTime to resend a refused move
+
+        Client(SocketChannel channel, int games) {
+            this.channel = channel;
+            this.gamesLeft = games;
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final int sessions, concurrent, games;
+    private final GameDifficulty level;
+    private final Random random;
+    private final Selector selector;
+    private final ArrayDeque<Client> retries = new ArrayDeque<>();  // refused moves, by retryAt
+    private static final long RETRY_NANOS = 1_000_000L;
+
+    private int started, finished, open;
+    private long gamesPlayed, busy, errors;
+    private long[] latencies = new long[1 << 16];
+    private int latencyCount;
+
+    public GameServerLoadTest(InetSocketAddress address, int sessions, int concurrent, GameDifficulty level,
+            int games, long seed) throws IOException {
+        this.address = address;
+        this.sessions = sessions;
+        this.concurrent = concurrent;
+        this.level = level;
+        this.games = games;
+        this.random = new Random(seed);
+        this.selector = Selector.open();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : "-";
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int concurrent = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        GameDifficulty level = args.length > 3 ? GameDifficulty.valueOf(args[3].toUpperCase(Locale.ROOT))
+                : GameDifficulty.EASY;
+        int games = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 1;
+
+        GameServer server = null;
+        Thread serverThread = null;
+        InetSocketAddress address;
+        if (target.equals("-")) {
+            server = new GameServer(0, Runtime.getRuntime().availableProcessors(), 1024,
+                    Board.DEFAULT_ROWS, Board.DEFAULT_COLS);
+            GameServer s = server;
+            serverThread = new Thread(() -> {
+                try {
+                    s.run();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "game-server");
+            serverThread.start();
+            address = new InetSocketAddress("127.0.0.1", server.getPort());
+        } else {
+            int colon = target.lastIndexOf(':');
+            address = new InetSocketAddress(target.substring(0, colon), Integer.parseInt(target.substring(colon + 1)));
+        }
+
+        try {
+            GameServerLoadTest test = new GameServerLoadTest(address, sessions, concurrent, level, games, seed);
+            long start = System.nanoTime();
+            test.run();
+            test.report(System.nanoTime() - start);
+            System.out.println("server: " + stats(address));
+        } finally {
+            if (server != null) {
+                server.stop();
+                serverThread.join();
+                server.close();
+            }
+        }
+    }
+
+    // =====================================================================
+    // METHOD 1: CLIENT LOOP
+    // Keeps up to `concurrent` sessions open; each reply line drives its
+    // session's next request. Everything runs on one selector thread.
+    // TIME COMPLEXITY: O(lines) per wakeup; O(sessions * games * moves) total
+    // =====================================================================
+
+    /** Plays every session to the end. */
+    public void run() throws IOException {
+        while (finished < sessions) {
+            while (open < concurrent && started < sessions) connect();
+            if (retries.isEmpty()) selector.select();
+            else selector.select(1);
+            while (!retries.isEmpty() && retries.peek().retryAt - System.nanoTime() <= 0) {
+                Client c = retries.poll();
+                try {
+                    send(c, "move " + (c.lastMove + 1));
+                } catch (IOException e) {
+                    errors++;
+                    close(c);
+                }
+            }
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                Client c = (Client) key.attachment();
+                try {
+                    if (key.isConnectable()) {
+                        c.channel.finishConnect();
+                        key.interestOps(SelectionKey.OP_READ);
+                        newGame(c);
+                    } else if (key.isReadable()) {
+                        read(c);
+                    }
+                } catch (IOException e) {
+                    errors++;
+                    close(c);
+                }
+            }
+        }
+        selector.close();
+    }
+
+    private void connect() throws IOException {
+        SocketChannel ch = SocketChannel.open();
+        ch.configureBlocking(false);
+        ch.socket().setTcpNoDelay(true);
+        Client c = new Client(ch, games);
+        ch.register(selector, SelectionKey.OP_CONNECT, c);
+        ch.connect(address);
+        started++;
+        open++;
+    }
+
+    private void read(Client c) throws IOException {
+        if (c.channel.read(c.in) < 0) {
+            errors++;  // server closed a session we had not quit
+            close(c);
+            return;
+        }
+        ByteBuffer in = c.in;
+        int from = 0;
+        for (int i = 0; i < in.position(); i++) {
+            if (in.get(i) != '\n') continue;
+            String line = new String(in.array(), from, i - from, StandardCharsets.US_ASCII);
+            from = i + 1;
+            if (!onLine(c, line)) return;  // session closed
+        }
+        in.flip();
+        in.position(from);
+        in.compact();
+    }
+
+    // Reacts to one server line; false once the session is closed
+    private boolean onLine(Client c, String line) throws IOException {
+        if (line.equals("ok")) {
+            play(c);
+        } else if (line.startsWith("ai ")) {
+            record(System.nanoTime() - c.sentAt);
+            c.board.insertDisc(Integer.parseInt(line.substring(3)) - 1, 'Y');
+            if (!c.board.lastMoveWins() && !c.board.isBoardFull()) play(c);
+            // otherwise "result" follows
+        } else if (line.startsWith("result ")) {
+            gamesPlayed++;
+            if (--c.gamesLeft > 0) {
+                newGame(c);
+            } else {
+                send(c, "quit");
+                close(c);
+                return false;
+            }
+        } else if (line.equals("error busy")) {
+            busy++;  // server undid the move: resend it shortly, latency keeps counting
+            c.retryAt = System.nanoTime() + RETRY_NANOS;
+            retries.add(c);
+        } else {
+            errors++;
+            close(c);
+            return false;
+        }
+        return true;
+    }
+
+    private void newGame(Client c) throws IOException {
+        c.board.initializeBoard();
+        send(c, "new " + level.name().toLowerCase(Locale.ROOT) + " R");
+    }
+
+    // Random legal move for the client (Red)
+    private void play(Client c) throws IOException {
+        int col;
+        do {
+            col = random.nextInt(c.board.getCols());
+        } while (!c.board.isValidMove(col));
+        c.board.insertDisc(col, 'R');
+        c.lastMove = col;
+        c.sentAt = System.nanoTime();
+        send(c, "move " + (col + 1));
+    }
+
+    // Requests are tiny and one is outstanding at a time, so the socket buffer
+    // always has room; a short write would be a broken connection
+    private void send(Client c, String line) throws IOException {
+        c.out.clear();
+        c.out.put(line.getBytes(StandardCharsets.US_ASCII)).put((byte) '\n').flip();
+        c.channel.write(c.out);
+        if (c.out.hasRemaining()) throw new IOException("short write");
+    }
+
+    private void close(Client c) {
+        try {
+            c.channel.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+        open--;
+        finished++;
+    }
+
+    private void record(long nanos) {
+        if (latencyCount == latencies.length) latencies = Arrays.copyOf(latencies, latencyCount * 2);
+        latencies[latencyCount++] = nanos;
+    }
+
+    // =====================================================================
+    // METHOD 2: REPORT
+    // TIME COMPLEXITY: O(n log n) for n latency samples
+    // =====================================================================
+
+    private void report(long nanos) {
+        double seconds = nanos / 1e9;
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        System.out.printf(Locale.ROOT, "%d sessions (%d concurrent, %s, %d games each) in %.1f s%n",
+                finished, concurrent, level, games, seconds);
+        System.out.printf(Locale.ROOT, "%.1f sessions/s, %.1f games/s, %.1f AI moves/s%n",
+                finished / seconds, gamesPlayed / seconds, latencyCount / seconds);
+        System.out.printf(Locale.ROOT, "AI reply ms: p50 %.3f  p90 %.3f  p99 %.3f  max %.3f%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 1.0));
+        System.out.printf("busy refusals %d, errors %d%n", busy, errors);
+    }
+
+    // Milliseconds at quantile q of sorted nanosecond samples
+    private static double percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.ceil(q * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))] / 1e6;
+    }
+
+    // Server counters over a fresh blocking connection
+    private static String stats(InetSocketAddress address) throws IOException {
+        try (Socket s = new Socket(address.getAddress(), address.getPort())) {
+            OutputStream out = s.getOutputStream();
+            out.write("stats\nquit\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII))
+                    .readLine();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * LineTable.java
+ * Precomputed geometry of the board, built once: every 4-cell winning line,
+ * the lines through each cell, and each cell's neighbour in all 8 directions.
+ *
+ * Win checks, evaluation and threat scans iterate these flat int/long arrays
+ * instead of re-deriving lines with nested direction loops and bounds checks.
+ *
+ * One table per board size (see of); 6x7 is built at class initialisation.
+ * Cells are numbered row * cols + col with row 0 at the top (as in
+ * Board.getBoard()). Directions (row step, col step): 0 horizontal (0, 1), 1 vertical (1, 0),
+ * 2 diagonal down (1, 1), 3 diagonal up (-1, 1); d + 4 is the reverse of d.
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public final class LineTable {
+    public static final int LINE_LENGTH = 4;
+    public static final int DIRECTIONS = 4;
+    private static final int[] ROW_STEP = {0, 1, 1, -1};
+    private static final int[] COL_STEP = {1, 0, 1, 1};
+
+    /** Table for the standard 6x7 board, built at class initialisation. */
+    public static final LineTable STANDARD = new LineTable(6, 7);
+    private static final ConcurrentMap<Integer, LineTable> TABLES = new ConcurrentHashMap<>();
+
+    final int rows, cols, cells, lines;
+
+    // Per line: its cells in order. Lines are grouped by direction:
+    // direction d owns [directionStart[d], directionStart[d + 1]).
+    final int[] lineCells;
+    final int[] directionStart;
+
+    // Lines through cell c: cellLines[cellLineStart[c] .. cellLineStart[c + 1])
+    final int[] cellLineStart;
+    final int[] cellLines;
+
+    // Per cell: neighbour in direction k (0-7) at [c * 8 + k], -1 off the board
+    final int[] neighbor;
+
+    private LineTable(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+
+        // Count lines per direction, then fill them grouped by direction
+        directionStart = new int[DIRECTIONS + 1];
+        for (int d = 0; d < DIRECTIONS; d++) {
+            int n = 0;
+            for (int r = 0; r < rows; r++)
+                for (int c = 0; c < cols; c++)
+                    if (fits(r, c, d)) n++;
+            directionStart[d + 1] = directionStart[d] + n;
+        }
+        lines = directionStart[DIRECTIONS];
+        lineCells = new int[lines * LINE_LENGTH];
+
+        int[] cellLineCount = new int[cells];
+        int line = 0;
+        for (int d = 0; d < DIRECTIONS; d++) {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    if (!fits(r, c, d)) continue;
+                    for (int i = 0; i < LINE_LENGTH; i++) {
+                        int cell = (r + i * ROW_STEP[d]) * cols + c + i * COL_STEP[d];
+                        lineCells[line * LINE_LENGTH + i] = cell;
+                        cellLineCount[cell]++;
+                    }
+                    line++;
+                }
+            }
+        }
+
+        cellLineStart = new int[cells + 1];
+        for (int cell = 0; cell < cells; cell++)
+            cellLineStart[cell + 1] = cellLineStart[cell] + cellLineCount[cell];
+        cellLines = new int[cellLineStart[cells]];
+        int[] fill = new int[cells];
+        for (int l = 0; l < lines; l++) {
+            for (int i = 0; i < LINE_LENGTH; i++) {
+                int cell = lineCells[l * LINE_LENGTH + i];
+                cellLines[cellLineStart[cell] + fill[cell]++] = l;
+            }
+        }
+
+        neighbor = new int[cells * 2 * DIRECTIONS];
+        for (int cell = 0; cell < cells; cell++) {
+            int r = cell / cols, c = cell % cols;
+            for (int k = 0; k < 2 * DIRECTIONS; k++) {
+                int sign = k < DIRECTIONS ? 1 : -1;
+                int nr = r + sign * ROW_STEP[k % DIRECTIONS];
+                int nc = c + sign * COL_STEP[k % DIRECTIONS];
+                neighbor[cell * 2 * DIRECTIONS + k] =
+                        (nr >= 0 && nr < rows && nc >= 0 && nc < cols) ? nr * cols + nc : -1;
+            }
+        }
+    }
+
+    /** Table for a rows x cols board; built on first use and shared afterwards. */
+    public static LineTable of(int rows, int cols) {
+        if (rows == STANDARD.rows && cols == STANDARD.cols) return STANDARD;
+        return TABLES.computeIfAbsent(rows << 16 | cols, k -> new LineTable(rows, cols));
+    }
+
+    // Does a line starting at (r, c) in direction d stay on the board?
+    private boolean fits(int r, int c, int d) {
+        int er = r + (LINE_LENGTH - 1) * ROW_STEP[d];
+        int ec = c + (LINE_LENGTH - 1) * COL_STEP[d];
+        return er >= 0 && er < rows && ec < cols;
+    }
+
+    /** Cell index of (row from top, col). */
+    int cell(int row, int col) {
+        return row * cols + col;
+    }
+
+    /** Neighbour of cell in direction k (0-7), or -1 off the board. */
+    int next(int cell, int k) {
+        return neighbor[cell * 2 * DIRECTIONS + k];
+    }
+}
@@ -1,13 +1,18 @@
 /**
  * Main.java
  * Entry point for Connect4 Game
- * Launches the UI
+ * Launches the UI, or with --engine the headless text engine (see EngineProtocol)
  */
 
 import javax.swing.SwingUtilities;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // Headless mode first: this path never touches a Swing/AWT class
+        if (args.length > 0 && args[0].equals("--engine")) {
+            EngineProtocol.main(args);
+            return;
+        }
         // Launch the UI on the Event Dispatch Thread
         SwingUtilities.invokeLater(() -> {
             new Connect4UI();
@@ -0,0 +1,164 @@
+/**
+ * OpeningBook.java
+ * Read-only, memory-mapped table of solved opening positions.
+ *
+ * File layout (big-endian):
+ *   int  magic ('C4BK'), int version, int maxPly, int count
+ *   long entries[count], sorted ascending; entry = (key << 8) | (score & 0xFF)
+ * key is the position key (side to move's discs + all discs, 49 bits),
+ * canonicalised over left-right mirroring, so each symmetric pair is
+ * stored once. score uses PerfectPlaySolver's scale.
+ *
+ * Lookups binary-search the mapped file directly: no heap allocation and
+ * no load time beyond the OS paging in what is touched. Written by
+ * OpeningBookBuilder.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class OpeningBook {
+    static final int MAGIC = 0x4334424B;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    private static final int WIDTH = 7;
+    private static final int STRIDE = 7;
+    private static final int[] COLUMN_ORDER = {3, 2, 4, 1, 5, 0, 6};
+
+    private final MappedByteBuffer entries;
+    private final int count;
+    private final int maxPly;
+
+    private OpeningBook(MappedByteBuffer entries, int count, int maxPly) {
+        this.entries = entries;
+        this.count = count;
+        this.maxPly = maxPly;
+    }
+
+    /** Maps the book file; the mapping stays valid after the channel is closed. */
+    public static OpeningBook open(Path path) throws IOException {
+        MappedByteBuffer buf = mapTable(path, MAGIC);
+        return new OpeningBook(buf, buf.getInt(12), buf.getInt(8));
+    }
+
+    // Map a sorted-entry table file and validate its header against magic
+    static MappedByteBuffer mapTable(Path path, int magic) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (ch.size() < HEADER_BYTES || buf.getInt(0) != magic || buf.getInt(4) != VERSION) {
+                throw new IOException("Unrecognised table file: " + path);
+            }
+            if (ch.size() != HEADER_BYTES + 8L * buf.getInt(12)) {
+                throw new IOException("Truncated table file: " + path);
+            }
+            return buf;
+        }
+    }
+
+    /** Opens path if it exists, otherwise returns null. */
+    public static OpeningBook openIfPresent(Path path) throws IOException {
+        return Files.isRegularFile(path) ? open(path) : null;
+    }
+
+    /** Deepest ply (discs on board) covered by the book. */
+    public int getMaxPly() {
+        return maxPly;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // =====================================================================
+    // METHOD 1: SCORE LOOKUP
+    // Binary search over the sorted entries in the mapped file.
+    // TIME COMPLEXITY: O(log N), no allocation
+    // =====================================================================
+
+    /** Exact score with the owner of current to move, or NOT_FOUND. */
+    public int getScore(long current, long mask) {
+        return findScore(entries, count, positionKey(current, mask));
+    }
+
+    // Shared with EndgameTable, which uses the same entry layout
+    static int findScore(ByteBuffer entries, int count, long key) {
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long entry = entries.getLong(HEADER_BYTES + 8 * mid);
+            long k = entry >>> 8;
+            if (k < key) lo = mid + 1;
+            else if (k > key) hi = mid - 1;
+            else return (byte) entry;
+        }
+        return NOT_FOUND;
+    }
+
+    /** Exact score of board with player to move, or NOT_FOUND. */
+    public int probe(Board board, char player) {
+        if (board.getMoveCount() > maxPly || !board.isStandardSize()) return NOT_FOUND;
+        return getScore(board.getDiscMask(player), board.getOccupiedMask());
+    }
+
+    // =====================================================================
+    // METHOD 2: BOOK MOVE
+    // Greedy: immediate win first, otherwise the reply whose (book) score is
+    // worst for the opponent. Ties go to the column nearest the center.
+    // TIME COMPLEXITY: O(C log N), no allocation
+    // =====================================================================
+
+    /** Perfect move for player, or -1 if any reply is missing from the book. */
+    public int bestMove(Board board, char player) {
+        int moves = board.getMoveCount();
+        if (moves + 1 > maxPly || !board.isStandardSize()) return -1;
+        long current = board.getDiscMask(player);
+        long mask = board.getOccupiedMask();
+
+        int best = -1;
+        int bestScore = NOT_FOUND;
+        for (int col : COLUMN_ORDER) {
+            if (!board.isValidMove(col)) continue;
+            if (PerfectPlaySolver.isWinningMove(current, mask, col)) return col;
+            long move = (mask + PerfectPlaySolver.bottomMaskCol(col)) & PerfectPlaySolver.columnMask(col);
+            int child = getScore(current ^ mask, mask | move);
+            if (child == NOT_FOUND) return -1;
+            if (best == -1 || -child > bestScore) {
+                best = col;
+                bestScore = -child;
+            }
+        }
+        return best;
+    }
+
+    // =====================================================================
+    // METHOD 3: POSITION KEY
+    // current + mask identifies a position uniquely (per column the sum
+    // never carries into the next column). Canonical key = min(key, mirror).
+    // TIME COMPLEXITY: O(C)
+    // =====================================================================
+
+    static long positionKey(long current, long mask) {
+        long key = current + mask;
+        long mirrored = mirror(key);
+        return Math.min(key, mirrored);
+    }
+
+    // Reverse the column order of a column-major key
+    static long mirror(long key) {
+        long m = 0;
+        long colBits = (1L << STRIDE) - 1;
+        for (int col = 0; col < WIDTH; col++) {
+            long bits = (key >>> (col * STRIDE)) & colBits;
+            m |= bits << ((WIDTH - 1 - col) * STRIDE);
+        }
+        return m;
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * OpeningBookBuilder.java
+ * Offline tool: solves every position up to N plies and writes an OpeningBook.
+ *
+ * Usage: java OpeningBookBuilder <plies> [output file] [threads] [root moves]
+ *   plies      deepest ply stored (8-12 makes the opening instant)
+ *   output     default connect4.book
+ *   threads    default = available processors
+ *   root moves optional column digits (1-7) of a line to build the book under
+ *
+ * Only the deepest ply is searched (one PerfectPlaySolver per thread); every
+ * shallower ply is backed up from its children, so the expensive work is
+ * proportional to the number of positions at ply N.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OpeningBookBuilder {
+    private static final int WIDTH = 7;
+    private static final int STRIDE = 7;
+    private static final int CELLS = 42;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java OpeningBookBuilder <plies> [output] [threads] [root moves]");
+            System.exit(1);
+        }
+        int plies = Integer.parseInt(args[0]);
+        Path out = Paths.get(args.length > 1 ? args[1] : "connect4.book");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Board root = new Board();
+        char player = 'R';
+        if (args.length > 3) {
+            for (char c : args[3].toCharArray()) {
+                int col = c - '1';
+                if (!root.isValidMove(col) || root.isWinningMove(col, player)) {
+                    throw new IllegalArgumentException("Bad or game-ending root move: " + c);
+                }
+                root.insertDisc(col, player);
+                player = (player == 'R') ? 'Y' : 'R';
+            }
+        }
+
+        long start = System.nanoTime();
+        long[] entries = build(root, player, plies, threads);
+        write(out, plies, entries);
+        System.out.printf("Wrote %d positions to %s in %.1f s%n",
+                entries.length, out, (System.nanoTime() - start) / 1e9);
+    }
+
+    // =====================================================================
+    // METHOD 1: BUILD
+    // Enumerate canonical positions ply by ply (sorted, deduplicated key
+    // arrays), solve the last ply in parallel, then back up to the root:
+    // score(p) = max over moves of -score(child), immediate win = (43-n)/2.
+    // TIME COMPLEXITY: O(P_N * solve) + O(P * C log P), P = positions stored
+    // =====================================================================
+
+    /** Sorted book entries for all positions from root (player to move) up to maxPly discs. */
+    public static long[] build(Board root, char player, int maxPly, int threads)
+            throws InterruptedException {
+        int rootPly = root.getMoveCount();
+        if (maxPly < rootPly || maxPly >= CELLS) {
+            throw new IllegalArgumentException("maxPly must be in [" + rootPly + ", " + (CELLS - 1) + "]");
+        }
+
+        int levels = maxPly - rootPly + 1;
+        long[][] keys = new long[levels][];
+        byte[][] scores = new byte[levels][];
+        keys[0] = new long[] {OpeningBook.positionKey(root.getDiscMask(player), root.getOccupiedMask())};
+        for (int i = 1; i < levels; i++) {
+            keys[i] = expand(keys[i - 1]);
+            System.out.printf("ply %d: %d positions%n", rootPly + i, keys[i].length);
+        }
+
+        scores[levels - 1] = solveAll(keys[levels - 1], maxPly, threads);
+        for (int i = levels - 2; i >= 0; i--) {
+            scores[i] = backUp(keys[i], rootPly + i, keys[i + 1], scores[i + 1]);
+        }
+
+        int total = 0;
+        for (long[] k : keys) total += k.length;
+        long[] entries = new long[total];
+        int n = 0;
+        for (int i = 0; i < levels; i++) {
+            for (int j = 0; j < keys[i].length; j++) {
+                entries[n++] = (keys[i][j] << 8) | (scores[i][j] & 0xFF);
+            }
+        }
+        Arrays.sort(entries);
+        return entries;
+    }
+
+    // Children of every position that do not end the game, canonicalised and deduplicated
+    static long[] expand(long[] parents) {
+        long[] children = new long[parents.length * WIDTH];
+        int n = 0;
+        long[] pos = new long[2];
+        for (long key : parents) {
+            decode(key, pos);
+            long current = pos[0], mask = pos[1];
+            for (int col = 0; col < WIDTH; col++) {
+                if ((mask & topMaskCol(col)) != 0 || PerfectPlaySolver.isWinningMove(current, mask, col)) continue;
+                long move = (mask + PerfectPlaySolver.bottomMaskCol(col)) & PerfectPlaySolver.columnMask(col);
+                children[n++] = OpeningBook.positionKey(current ^ mask, mask | move);
+            }
+        }
+        return sortUnique(children, n);
+    }
+
+    // Sorted, deduplicated copy of keys[0..n)
+    static long[] sortUnique(long[] keys, int n) {
+        Arrays.sort(keys, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || keys[i] != keys[unique - 1]) keys[unique++] = keys[i];
+        }
+        return Arrays.copyOf(keys, unique);
+    }
+
+    private static byte[] solveAll(long[] keys, int ply, int threads) throws InterruptedException {
+        byte[] scores = new byte[keys.length];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        for (int t = 0; t < Math.max(1, threads); t++) {
+            pool.execute(() -> {
+                PerfectPlaySolver solver = new PerfectPlaySolver();
+                long[] pos = new long[2];
+                for (int i; (i = next.getAndIncrement()) < keys.length; ) {
+                    decode(keys[i], pos);
+                    scores[i] = (byte) solver.solve(pos[0], pos[1], ply, false);
+                    int d = done.incrementAndGet();
+                    if (d % 1000 == 0) System.out.printf("solved %d / %d%n", d, keys.length);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        return scores;
+    }
+
+    static byte[] backUp(long[] keys, int ply, long[] childKeys, byte[] childScores) {
+        byte[] scores = new byte[keys.length];
+        long[] pos = new long[2];
+        for (int i = 0; i < keys.length; i++) {
+            decode(keys[i], pos);
+            long current = pos[0], mask = pos[1];
+            int best = Integer.MIN_VALUE;
+            for (int col = 0; col < WIDTH; col++) {
+                if ((mask & topMaskCol(col)) != 0) continue;
+                if (PerfectPlaySolver.isWinningMove(current, mask, col)) {
+                    best = (CELLS + 1 - ply) / 2;
+                    break;
+                }
+                long move = (mask + PerfectPlaySolver.bottomMaskCol(col)) & PerfectPlaySolver.columnMask(col);
+                int idx = Arrays.binarySearch(childKeys, OpeningBook.positionKey(current ^ mask, mask | move));
+                best = Math.max(best, -childScores[idx]);
+            }
+            scores[i] = (byte) best;
+        }
+        return scores;
+    }
+
+    // Recover (current, mask) from a key: per column, key = mask + current with
+    // mask = 2^h - 1, so the height is the index of the highest bit of key + 1
+    static void decode(long key, long[] out) {
+        long current = 0, mask = 0;
+        for (int col = 0; col < WIDTH; col++) {
+            int v = (int) (key >>> (col * STRIDE)) & ((1 << STRIDE) - 1);
+            int h = 31 - Integer.numberOfLeadingZeros(v + 1);
+            long colMask = (1L << h) - 1;
+            mask |= colMask << (col * STRIDE);
+            current |= (v - colMask) << (col * STRIDE);
+        }
+        out[0] = current;
+        out[1] = mask;
+    }
+
+    private static long topMaskCol(int col) {
+        return 1L << (5 + col * STRIDE);
+    }
+
+    // =====================================================================
+    // METHOD 2: WRITE
+    // Header + sorted entries, big-endian (matches MappedByteBuffer default).
+    // TIME COMPLEXITY: O(P)
+    // =====================================================================
+
+    public static void write(Path out, int maxPly, long[] entries) throws IOException {
+        writeTable(out, OpeningBook.MAGIC, maxPly, entries);
+    }
+
+    // Shared with EndgameTableBuilder; ply is the table's ply bound
+    static void writeTable(Path out, int magic, int ply, long[] entries) throws IOException {
+        try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(out), 1 << 16))) {
+            os.writeInt(magic);
+            os.writeInt(OpeningBook.VERSION);
+            os.writeInt(ply);
+            os.writeInt(entries.length);
+            for (long e : entries) os.writeLong(e);
+        }
+    }
+}
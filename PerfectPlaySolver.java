@@ -0,0 +1,416 @@
+/**
+ * PerfectPlaySolver.java
+ * Strong solver: computes the exact game-theoretic value of a position.
+ *
+ * Scores are from the side to move's perspective:
+ *   0         draw with perfect play
+ *   positive  side to move wins; (43 - n) / 2 where n = discs on the board
+ *             just before the winning disc, so faster wins score higher
+ *   negative  side to move loses, same scale from the opponent's view
+ * pliesToResult converts a score back into a distance in plies.
+ *
+ * Works on its own two-mask copy of the position (same bit layout as Board),
+ * so solving never touches the game board. Not thread-safe: one solver per thread
+ * (stopSearch excepted).
+ */
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PerfectPlaySolver {
+    private static final int WIDTH = 7;
+    private static final int HEIGHT = 6;
+    private static final int STRIDE = HEIGHT + 1;
+    private static final int CELLS = WIDTH * HEIGHT;
+
+    public static final int MIN_SCORE = -CELLS / 2 + 3;
+    public static final int MAX_SCORE = (CELLS + 1) / 2 - 3;
+
+    private static final long BOTTOM_MASK = bottomMask();
+    private static final long BOARD_MASK = BOTTOM_MASK * ((1L << HEIGHT) - 1);
+    private static final int[] COLUMN_ORDER = {3, 2, 4, 1, 5, 0, 6};
+
+    private static final int DEFAULT_LOG2_ENTRIES = 23;
+
+    private final CompactTable table;
+    private OpeningBook book;
+    private long nodeCount;
+    private int lastScore = Integer.MIN_VALUE;
+    private final AtomicBoolean stopRequested = new AtomicBoolean();
+
+    // Per-ply move lists for the sorter (no allocation inside the search)
+    private final long[][] sortedMoves = new long[CELLS + 1][WIDTH];
+    private final int[][] sortedScores = new int[CELLS + 1][WIDTH];
+
+    public PerfectPlaySolver() {
+        this(DEFAULT_LOG2_ENTRIES);
+    }
+
+    /** @param log2Entries table holds about 2^log2Entries entries, 5 bytes each (18..28) */
+    public PerfectPlaySolver(int log2Entries) {
+        this.table = new CompactTable(log2Entries);
+    }
+
+    // =====================================================================
+    // METHOD 1: SOLVE
+    // Null-window probes narrow [min, max] until the exact score is known.
+    // Probes are biased toward 0 so short wins/losses are proven quickly.
+    // TIME COMPLEXITY: O(log S * negamax) with S = score range (at most 43)
+    // =====================================================================
+
+    /** Exact score of board with player to move. */
+    public int solve(Board board, char player) {
+        return solve(board, player, false);
+    }
+
+    /** weak = true only distinguishes win (1), draw (0) and loss (-1); much faster. */
+    public int solve(Board board, char player, boolean weak) {
+        checkDimensions(board);
+        long current = board.getDiscMask(player);
+        long mask = board.getOccupiedMask();
+        return solve(current, mask, board.getMoveCount(), weak);
+    }
+
+    int solve(long current, long mask, int moves, boolean weak) {
+        if (canWinNext(current, mask)) return (CELLS + 1 - moves) / 2;
+        int min = -(CELLS - moves) / 2;
+        int max = (CELLS + 1 - moves) / 2;
+        if (weak) {
+            min = -1;
+            max = 1;
+        }
+        while (min < max) {
+            int med = min + (max - min) / 2;
+            if (med <= 0 && min / 2 < med) med = min / 2;
+            else if (med >= 0 && max / 2 > med) med = max / 2;
+            int r = negamax(current, mask, moves, med, med + 1);
+            if (stopRequested.get()) return 0;  // unreliable; callers check isStopped
+            if (r <= med) max = r;
+            else min = r;
+        }
+        return min;
+    }
+
+    // =====================================================================
+    // METHOD 2: ANALYZE / BEST MOVE
+    // Solves every legal reply; the best move has the highest score.
+    // TIME COMPLEXITY: O(C * solve)
+    // =====================================================================
+
+    /** Score of each column for player (Integer.MIN_VALUE = column full). */
+    public int[] analyze(Board board, char player) {
+        checkDimensions(board);
+        long current = board.getDiscMask(player);
+        long mask = board.getOccupiedMask();
+        int moves = board.getMoveCount();
+        int[] scores = new int[WIDTH];
+        for (int col = 0; col < WIDTH; col++) {
+            if ((mask & topMaskCol(col)) != 0) {
+                scores[col] = Integer.MIN_VALUE;
+            } else if (isWinningMove(current, mask, col)) {
+                scores[col] = (CELLS + 1 - moves) / 2;
+            } else {
+                long move = (mask + bottomMaskCol(col)) & columnMask(col);
+                long next = current ^ mask;  // opponent to move after our disc
+                scores[col] = -solve(next, mask | move, moves + 1, false);
+                if (stopRequested.get()) break;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Perfect move for player; ties go to the column nearest the center. -1 if board is full.
+     * If stopped: the legal column nearest the center, and no last score.
+     */
+    public int findBestMove(Board board, char player) {
+        int[] scores = analyze(board, player);
+        if (stopRequested.get()) {
+            lastScore = Integer.MIN_VALUE;
+            for (int col : COLUMN_ORDER)
+                if (board.isValidMove(col)) return col;
+            return -1;
+        }
+        int best = -1;
+        for (int col : COLUMN_ORDER) {
+            if (scores[col] == Integer.MIN_VALUE) continue;
+            if (best == -1 || scores[col] > scores[best]) best = col;
+        }
+        lastScore = best == -1 ? Integer.MIN_VALUE : scores[best];
+        return best;
+    }
+
+    /** Exact score of the position behind the last findBestMove (MIN_VALUE if the board was full). */
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    /**
+     * Plies until the game ends under perfect play, counting the final disc.
+     * @param score     solve() result for the position
+     * @param moveCount discs on the board in that position
+     */
+    public static int pliesToResult(int score, int moveCount) {
+        if (score == 0) return CELLS - moveCount;
+        if (score < 0) return 1 + pliesToResult(-score, moveCount + 1);
+        // Winning disc lands after n discs, n has the same parity as moveCount
+        int n = CELLS + 1 - 2 * score;
+        if ((n & 1) != (moveCount & 1)) n--;
+        return n - moveCount + 1;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    public void resetNodeCount() {
+        nodeCount = 0;
+    }
+
+    /** Positions covered by book are answered from it instead of searched. */
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Makes a running solve/analyze/findBestMove (any thread) return early; its
+     * result is then unreliable (see isStopped). Nothing half-searched is cached.
+     * Sticky: later solves also stop until clearStop().
+     */
+    public void stopSearch() {
+        stopRequested.set(true);
+    }
+
+    public void clearStop() {
+        stopRequested.set(false);
+    }
+
+    public boolean isStopped() {
+        return stopRequested.get();
+    }
+
+    /** Forget all cached results (the table otherwise persists across solves). */
+    public void clearCache() {
+        table.clear();
+    }
+
+    // =====================================================================
+    // METHOD 3: NEGAMAX WITH ALPHA-BETA
+    // Assumes the side to move cannot win immediately. Losing moves are
+    // pruned up front; remaining moves are ordered by how many winning
+    // cells they create. Table keeps upper and lower bounds. A stop unwinds
+    // without storing anything.
+    // TIME COMPLEXITY: O(b^d) worst, far less with ordering + table
+    // =====================================================================
+
+    private int negamax(long current, long mask, int moves, int alpha, int beta) {
+        nodeCount++;
+        if (stopRequested.get()) return 0;
+
+        long possible = possibleNonLosingMoves(current, mask);
+        if (possible == 0) return -(CELLS - moves) / 2;   // every move loses next turn
+        if (moves >= CELLS - 2) return 0;                 // draw: board fills up
+
+        int min = -(CELLS - 2 - moves) / 2;               // opponent cannot win next move
+        if (alpha < min) {
+            alpha = min;
+            if (alpha >= beta) return alpha;
+        }
+        int max = (CELLS - 1 - moves) / 2;                // we cannot win next move
+
+        long key = current + mask;
+        int val = table.get(key);
+        if (val != 0) {
+            if (val > MAX_SCORE - MIN_SCORE + 1) {         // lower bound
+                min = val + 2 * MIN_SCORE - MAX_SCORE - 2;
+                if (alpha < min) {
+                    alpha = min;
+                    if (alpha >= beta) return alpha;
+                }
+            } else {                                       // upper bound
+                max = val + MIN_SCORE - 1;
+            }
+        }
+        if (beta > max) {
+            beta = max;
+            if (alpha >= beta) return beta;
+        }
+
+        if (book != null && moves <= book.getMaxPly()) {
+            int score = book.getScore(current, mask);
+            if (score != OpeningBook.NOT_FOUND) return score;
+        }
+
+        // Insertion sort by threat count, center columns first among equals
+        long[] order = sortedMoves[moves];
+        int[] scores = sortedScores[moves];
+        int size = 0;
+        for (int col : COLUMN_ORDER) {
+            long move = possible & columnMask(col);
+            if (move == 0) continue;
+            int s = Long.bitCount(winningCells(current | move, mask | move));
+            int pos = size++;
+            while (pos > 0 && scores[pos - 1] < s) {
+                order[pos] = order[pos - 1];
+                scores[pos] = scores[pos - 1];
+                pos--;
+            }
+            order[pos] = move;
+            scores[pos] = s;
+        }
+
+        for (int i = 0; i < size; i++) {
+            long move = order[i];
+            // Play move: opponent becomes the side to move
+            int score = -negamax(current ^ mask, mask | move, moves + 1, -beta, -alpha);
+            if (stopRequested.get()) return 0;  // never store a stopped subtree's bound
+            if (score >= beta) {
+                table.put(key, score + MAX_SCORE - 2 * MIN_SCORE + 2);
+                return score;
+            }
+            if (score > alpha) alpha = score;
+        }
+        table.put(key, alpha - MIN_SCORE + 1);
+        return alpha;
+    }
+
+    // =====================================================================
+    // METHOD 4: BITBOARD HELPERS
+    // current = side to move's discs, mask = all discs.
+    // Package-private: shared with OpeningBook and OpeningBookBuilder.
+    // TIME COMPLEXITY: O(1) each
+    // =====================================================================
+
+    static boolean canWinNext(long current, long mask) {
+        return (winningCells(current, mask) & possible(mask)) != 0;
+    }
+
+    static boolean isWinningMove(long current, long mask, int col) {
+        return (winningCells(current, mask) & possible(mask) & columnMask(col)) != 0;
+    }
+
+    // Playable cells that do not hand the opponent an immediate win
+    private static long possibleNonLosingMoves(long current, long mask) {
+        long possibleMask = possible(mask);
+        long opponentWin = winningCells(current ^ mask, mask);
+        long forced = possibleMask & opponentWin;
+        if (forced != 0) {
+            if ((forced & (forced - 1)) != 0) return 0;   // two threats: lost
+            possibleMask = forced;                         // must block
+        }
+        return possibleMask & ~(opponentWin >>> 1);        // don't play under a threat
+    }
+
+    static long possible(long mask) {
+        return (mask + BOTTOM_MASK) & BOARD_MASK;
+    }
+
+    // Empty cells that would complete four for the discs in position
+    static long winningCells(long position, long mask) {
+        // vertical
+        long r = (position << 1) & (position << 2) & (position << 3);
+
+        // horizontal
+        long p = (position << STRIDE) & (position << 2 * STRIDE);
+        r |= p & (position << 3 * STRIDE);
+        r |= p & (position >>> STRIDE);
+        p = (position >>> STRIDE) & (position >>> 2 * STRIDE);
+        r |= p & (position << STRIDE);
+        r |= p & (position >>> 3 * STRIDE);
+
+        // diagonal, descending
+        p = (position << HEIGHT) & (position << 2 * HEIGHT);
+        r |= p & (position << 3 * HEIGHT);
+        r |= p & (position >>> HEIGHT);
+        p = (position >>> HEIGHT) & (position >>> 2 * HEIGHT);
+        r |= p & (position << HEIGHT);
+        r |= p & (position >>> 3 * HEIGHT);
+
+        // diagonal, ascending
+        p = (position << (HEIGHT + 2)) & (position << 2 * (HEIGHT + 2));
+        r |= p & (position << 3 * (HEIGHT + 2));
+        r |= p & (position >>> (HEIGHT + 2));
+        p = (position >>> (HEIGHT + 2)) & (position >>> 2 * (HEIGHT + 2));
+        r |= p & (position << (HEIGHT + 2));
+        r |= p & (position >>> 3 * (HEIGHT + 2));
+
+        return r & (BOARD_MASK ^ mask);
+    }
+
+    private static long topMaskCol(int col) {
+        return 1L << (HEIGHT - 1 + col * STRIDE);
+    }
+
+    static long bottomMaskCol(int col) {
+        return 1L << (col * STRIDE);
+    }
+
+    static long columnMask(int col) {
+        return ((1L << HEIGHT) - 1) << (col * STRIDE);
+    }
+
+    private static long bottomMask() {
+        long m = 0;
+        for (int col = 0; col < WIDTH; col++) m |= bottomMaskCol(col);
+        return m;
+    }
+
+    private static void checkDimensions(Board board) {
+        if (!board.isStandardSize()) {
+            throw new IllegalArgumentException("Solver supports " + HEIGHT + "x" + WIDTH + " boards only");
+        }
+    }
+
+    // =====================================================================
+    // COMPACT TRANSPOSITION TABLE
+    // Prime number of slots; stores only the low 32 bits of the 49-bit key
+    // plus a 1-byte value. key mod size and the low 32 bits together
+    // identify the key exactly (size > 2^17), so there are no false hits.
+    // Always-replace. TIME COMPLEXITY: O(1) get/put
+    // =====================================================================
+
+    private static final class CompactTable {
+        private final int[] keys;
+        private final byte[] values;
+        private final int size;
+
+        CompactTable(int log2Entries) {
+            if (log2Entries < 18 || log2Entries > 28) {
+                throw new IllegalArgumentException("log2Entries out of range: " + log2Entries);
+            }
+            size = largestPrimeBelow(1 << log2Entries);
+            keys = new int[size];
+            values = new byte[size];
+        }
+
+        // Stored value, or 0 if key is absent
+        int get(long key) {
+            int i = index(key);
+            return keys[i] == (int) key ? values[i] & 0xFF : 0;
+        }
+
+        void put(long key, int value) {
+            int i = index(key);
+            keys[i] = (int) key;
+            values[i] = (byte) value;
+        }
+
+        void clear() {
+            java.util.Arrays.fill(keys, 0);
+            java.util.Arrays.fill(values, (byte) 0);
+        }
+
+        private int index(long key) {
+            return (int) (key % size);
+        }
+
+        private static int largestPrimeBelow(int n) {
+            for (int c = n - 1; ; c--) {
+                boolean prime = c % 2 != 0;
+                for (int d = 3; prime && (long) d * d <= c; d += 2) {
+                    if (c % d == 0) prime = false;
+                }
+                if (prime) return c;
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Ponderer.java
+ * Speculative search on the opponent's time. After the AI moves, every legal
+ * opponent reply is searched in the background, each on its own Board copy
+ * with its own Connect4AI. When the opponent commits a column, the matching
+ * result is returned immediately if finished, or awaited if still running.
+ * All other searches are cancelled.
+ *
+ * Engines are kept between turns so their caches keep warming up; call
+ * resetGame for a new game. start/takeMove/cancel are meant to be called
+ * from one thread at a time (the UI drives them in turn order). Every
+ * level's search can be stopped, so cancel never waits long.
+ */
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Ponderer {
+
+    /** Search used for a speculative position at the level given to start. */
+    public interface MoveSearch {
+        int findMove(Connect4AI ai, char player, GameDifficulty level);
+    }
+
+    private static final int QUEUED = 0, RUNNING = 1, DROPPED = 2;
+
+    private final MoveSearch search;
+    private final ExecutorService pool;
+    // Per reply column, sized from the first position's board
+    private int[] columnOrder = new int[0];  // likeliest replies (nearest the center) first
+    private Board[] boards;
+    private Connect4AI[] engines;
+    private Future<?>[] results = new Future<?>[0];
+    private AtomicInteger[] states;  // QUEUED -> RUNNING, or QUEUED -> DROPPED (never runs)
+    private long[] positionKeys;
+
+    public Ponderer(MoveSearch search) {
+        this.search = search;
+        int threads = Math.min(Board.DEFAULT_COLS, Runtime.getRuntime().availableProcessors());
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ponder");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    // =====================================================================
+    // METHOD 1: START PONDERING
+    // One background search per legal opponent reply that does not end the
+    // game; replies are queued center-first.
+    // TIME COMPLEXITY: O(C) to queue; searches run concurrently
+    // =====================================================================
+
+    /** Starts searching position + each reply by opponent, for player to answer at level. */
+    public void start(Board position, char opponent, char player, GameDifficulty level) {
+        cancel();
+        if (engines == null || boards[0].getRows() != position.getRows()
+                || boards.length != position.getCols()) createEngines(position);
+        for (int col : columnOrder) {
+            if (!position.isValidMove(col) || position.isWinningMove(col, opponent)) continue;
+            Board b = boards[col];
+            b.copyFrom(position);
+            b.insertDisc(col, opponent);
+            if (b.isBoardFull()) continue;
+            positionKeys[col] = b.getZobristHash();
+            Connect4AI engine = engines[col];
+            engine.clearStop();
+            AtomicInteger state = new AtomicInteger(QUEUED);
+            states[col] = state;
+            // level is captured here: pool threads never read the caller's state
+            results[col] = pool.submit(() ->
+                    state.compareAndSet(QUEUED, RUNNING) ? search.findMove(engine, player, level) : -1);
+        }
+    }
+
+    // =====================================================================
+    // METHOD 2: TAKE RESULT
+    // Reuse the search for the reply actually played (finished or still
+    // running); cancel the rest. Returns -1 when nothing matches.
+    // TIME COMPLEXITY: O(C) + remaining time of the matching search
+    // =====================================================================
+
+    /** Pondered move for position (opponent's reply already on the board), or -1. */
+    public int takeMove(Board position) {
+        int col = position.getLastMoveColumn();
+        if (col < 0 || col >= results.length || results[col] == null || positionKeys[col] != position.getZobristHash()
+                || boards[col].getMoveCount() != position.getMoveCount()) {
+            cancel();
+            return -1;
+        }
+        Future<?> match = results[col];
+        results[col] = null;
+        cancel();  // frees the pool's threads if the match is still queued
+        try {
+            return (Integer) match.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (ExecutionException | CancellationException e) {
+            return -1;
+        }
+    }
+
+    /** Drops all pending speculative searches; running ones are stopped and awaited (a few nodes). */
+    public void cancel() {
+        for (int col = 0; col < results.length; col++) {
+            Future<?> f = results[col];
+            if (f == null) continue;
+            results[col] = null;
+            // cancel(false) also "succeeds" on a running task, so claim it first
+            if (states[col].compareAndSet(QUEUED, DROPPED) || f.isDone()) continue;
+            engines[col].stopSearch();
+            try {
+                f.get();  // engine and board are reused by the next start()
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | CancellationException e) {
+                // result discarded anyway
+            }
+        }
+    }
+
+    /** New game: cancel and clear the speculative engines' caches. */
+    public void resetGame() {
+        cancel();
+        if (engines != null)
+            for (Connect4AI engine : engines) engine.resetGame();
+    }
+
+    private void createEngines(Board position) {
+        int cols = position.getCols();
+        int center = cols / 2;
+        columnOrder = new int[cols];
+        for (int i = 0; i < cols; i++)  // center, then alternately left and right
+            columnOrder[i] = center + ((i & 1) == 1 ? -(i + 1) / 2 : i / 2);
+        results = new Future<?>[cols];
+        states = new AtomicInteger[cols];
+        positionKeys = new long[cols];
+        boards = new Board[cols];
+        engines = new Connect4AI[cols];
+        for (int col = 0; col < cols; col++) {
+            boards[col] = new Board(position);
+            engines[col] = new Connect4AI(boards[col]);
+        }
+    }
+}
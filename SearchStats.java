@@ -0,0 +1,110 @@
+/**
+ * SearchStats.java
+ * Immutable counters for one engine search, taken when the search returns.
+ *
+ * Raw counts are kept; rates are derived on demand. Counters that an engine
+ * does not have (e.g. a transposition table for the Easy greedy move) are 0,
+ * and the derived rates are then 0 as well.
+ */
+
+public final class SearchStats {
+
+    /** Stats of a move that needed no search (book move, immediate win/block). */
+    public static final SearchStats EMPTY = new SearchStats(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final long nodes;
+    private final long elapsedNanos;
+    private final int depthReached;
+    private final long ttProbes;
+    private final long ttHits;
+    private final long ttCutoffs;
+    private final long betaCutoffs;
+    private final long firstMoveCutoffs;
+    private final double branchingFactor;
+
+    public SearchStats(long nodes, long elapsedNanos, int depthReached, long ttProbes, long ttHits,
+            long ttCutoffs, long betaCutoffs, long firstMoveCutoffs, double branchingFactor) {
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.depthReached = depthReached;
+        this.ttProbes = ttProbes;
+        this.ttHits = ttHits;
+        this.ttCutoffs = ttCutoffs;
+        this.betaCutoffs = betaCutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.branchingFactor = branchingFactor;
+    }
+
+    /**
+     * Effective branching factor of a search to depth with the given node count,
+     * N^(1/d). Iteration-to-iteration ratios are not used: tables kept across
+     * moves make early iterations nearly free, which skews them.
+     */
+    public static double branchingFactor(long nodes, int depth) {
+        if (nodes <= 1 || depth <= 0) return 0;
+        return Math.pow(nodes, 1.0 / depth);
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /** Deepest fully completed search depth (0 when no search ran). */
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    public long getTtProbes() {
+        return ttProbes;
+    }
+
+    public long getTtHits() {
+        return ttHits;
+    }
+
+    /** Probes whose stored bound was deep and tight enough to return at once. */
+    public long getTtCutoffs() {
+        return ttCutoffs;
+    }
+
+    public long getBetaCutoffs() {
+        return betaCutoffs;
+    }
+
+    /** Beta cutoffs produced by the first move searched (move-ordering quality). */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    public double getEffectiveBranchingFactor() {
+        return branchingFactor;
+    }
+
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+    }
+
+    public double getTtHitRate() {
+        return ttProbes == 0 ? 0 : (double) ttHits / ttProbes;
+    }
+
+    public double getTtCutoffRate() {
+        return ttProbes == 0 ? 0 : (double) ttCutoffs / ttProbes;
+    }
+
+    public double getFirstMoveCutoffRatio() {
+        return betaCutoffs == 0 ? 0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("nodes=%d time=%.3fms nps=%.0f depth=%d ttProbes=%d ttHit=%.1f%% ttCut=%.1f%% "
+                + "betaCuts=%d firstMove=%.1f%% ebf=%.2f", nodes, elapsedNanos / 1e6, getNodesPerSecond(),
+                depthReached, ttProbes, 100 * getTtHitRate(), 100 * getTtCutoffRate(), betaCutoffs,
+                100 * getFirstMoveCutoffRatio(), branchingFactor);
+    }
+}
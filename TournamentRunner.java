@@ -0,0 +1,310 @@
+/**
+ * TournamentRunner.java
+ * Headless engine-vs-engine tournament over the GameDifficulty levels.
+ *
+ * Usage: java TournamentRunner [games] [engines] [opening plies] [threads] [seed] [rows x cols]
+ *   games          total games (default 1000), spread over all engine pairs
+ *   engines        comma-separated GameDifficulty names (default EASY,MODERATE,HARD)
+ *   opening plies  random non-losing plies played before the engines take over
+ *                  (default 4); each opening is played twice with colours swapped,
+ *                  since the engines themselves are deterministic; must leave
+ *                  at least one empty cell
+ *   threads        worker threads (default = available processors)
+ *   seed           RNG seed for openings (default 1)
+ *   rows x cols    board size, e.g. 9x7 (default 6x7); PERFECT needs 6x7
+ *
+ * Every game runs as its own task on a fixed pool sized to the cores, on the
+ * worker's Board; each worker keeps one Connect4AI (reset between games).
+ * Reports score per pairing, Elo estimates, per-move latency percentiles and
+ * nodes per second per engine.
+ */
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class TournamentRunner {
+
+    /** Outcome of one game plus per-move measurements for both sides. */
+    static final class GameResult {
+        final int red, yellow;  // engine indices
+        final char winner;      // 'R', 'Y' or ' ' for a draw
+        final long[] moveNanos;
+        final long[] moveNodes;
+        final int[] moveEngine;
+        final int moves;
+
+        GameResult(int red, int yellow, char winner, long[] moveNanos, long[] moveNodes,
+                int[] moveEngine, int moves) {
+            this.red = red;
+            this.yellow = yellow;
+            this.winner = winner;
+            this.moveNanos = moveNanos;
+            this.moveNodes = moveNodes;
+            this.moveEngine = moveEngine;
+            this.moves = moves;
+        }
+    }
+
+    // One Board + Connect4AI per worker thread, reused across games
+    private static final class Worker {
+        final Board board;
+        final Connect4AI ai;
+
+        Worker(int rows, int cols) {
+            board = new Board(rows, cols);
+            ai = new Connect4AI(board);
+        }
+    }
+
+    private final GameDifficulty[] engines;
+    private final int threads;
+    private final int rows, cols;
+    private final ThreadLocal<Worker> workers;
+
+    public TournamentRunner(GameDifficulty[] engines, int threads) {
+        this(engines, threads, Board.DEFAULT_ROWS, Board.DEFAULT_COLS);
+    }
+
+    public TournamentRunner(GameDifficulty[] engines, int threads, int rows, int cols) {
+        if (engines.length < 2) throw new IllegalArgumentException("Need at least two engines");
+        this.engines = engines;
+        this.threads = threads;
+        this.rows = rows;
+        this.cols = cols;
+        this.workers = ThreadLocal.withInitial(() -> new Worker(rows, cols));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        String[] names = (args.length > 1 ? args[1] : "EASY,MODERATE,HARD").split(",");
+        int openingPlies = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1L;
+        int rows = Board.DEFAULT_ROWS, cols = Board.DEFAULT_COLS;
+        if (args.length > 5) {
+            String[] size = args[5].toLowerCase(Locale.ROOT).split("x");
+            rows = Integer.parseInt(size[0]);
+            cols = Integer.parseInt(size[1]);
+        }
+        if (openingPlies < 0 || openingPlies >= rows * cols)
+            throw new IllegalArgumentException("Opening plies must be in 0.." + (rows * cols - 1) + " on " + rows + "x" + cols);
+
+        GameDifficulty[] engines = new GameDifficulty[names.length];
+        for (int i = 0; i < names.length; i++) engines[i] = GameDifficulty.valueOf(names[i].trim().toUpperCase(Locale.ROOT));
+
+        TournamentRunner runner = new TournamentRunner(engines, threads, rows, cols);
+        long start = System.nanoTime();
+        List<GameResult> results = runner.run(games, openingPlies, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        runner.report(results, seconds);
+    }
+
+    // =====================================================================
+    // METHOD 1: SCHEDULE AND PLAY
+    // Round-robin over engine pairs; each random opening is played twice
+    // with colours swapped. Games run concurrently, results are collected
+    // in schedule order.
+    // TIME COMPLEXITY: O(games * moves * move cost / threads)
+    // =====================================================================
+
+    public List<GameResult> run(int games, int openingPlies, long seed) throws InterruptedException {
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < engines.length; i++)
+            for (int j = i + 1; j < engines.length; j++) pairs.add(new int[] {i, j});
+
+        Random rng = new Random(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<GameResult>> futures = new ArrayList<>(games);
+        int[] opening = null;
+        try {
+            for (int g = 0; g < games; g++) {
+                int[] pair = pairs.get((g / 2) % pairs.size());
+                if (g % 2 == 0) opening = randomOpening(rng, openingPlies);
+                int red = (g % 2 == 0) ? pair[0] : pair[1];
+                int yellow = (g % 2 == 0) ? pair[1] : pair[0];
+                int[] line = opening;
+                futures.add(pool.submit(() -> playGame(red, yellow, line)));
+            }
+        } catch (RuntimeException e) {
+            pool.shutdownNow();
+            throw e;
+        }
+        pool.shutdown();
+
+        List<GameResult> results = new ArrayList<>(games);
+        int done = 0;
+        for (Future<GameResult> f : futures) {
+            try {
+                results.add(f.get());
+            } catch (ExecutionException e) {
+                pool.shutdownNow();
+                throw new IllegalStateException("Game failed", e.getCause());
+            }
+            if (++done % 500 == 0) System.out.printf("%d / %d games%n", done, games);
+        }
+        return results;
+    }
+
+    private GameResult playGame(int red, int yellow, int[] opening) {
+        Worker w = workers.get();
+        Board board = w.board;
+        Connect4AI ai = w.ai;
+        board.initializeBoard();
+        ai.resetGame();
+
+        char player = 'R';
+        for (int col : opening) {
+            board.insertDisc(col, player);
+            player = (player == 'R') ? 'Y' : 'R';
+        }
+
+        int cells = board.getRows() * board.getCols();
+        long[] nanos = new long[cells];
+        long[] nodes = new long[cells];
+        int[] engineOf = new int[cells];
+        int moves = 0;
+        char winner = ' ';
+        while (!board.isBoardFull()) {
+            int engine = (player == 'R') ? red : yellow;
+            long t0 = System.nanoTime();
+            int col = ai.findBestMove(player, engines[engine]);
+            nanos[moves] = System.nanoTime() - t0;
+            nodes[moves] = ai.getLastNodeCount();
+            engineOf[moves] = engine;
+            moves++;
+            board.insertDisc(col, player);
+            if (board.lastMoveWins()) {
+                winner = player;
+                break;
+            }
+            player = (player == 'R') ? 'Y' : 'R';
+        }
+        return new GameResult(red, yellow, winner, nanos, nodes, engineOf, moves);
+    }
+
+    // Random line of plies that never completes four (side to move avoids immediate wins).
+    // A line that reaches a position where every legal move wins is thrown away and
+    // replayed; gives up after MAX_OPENING_ATTEMPTS lines.
+    private static final int MAX_OPENING_ATTEMPTS = 1000;
+
+    private int[] randomOpening(Random rng, int plies) {
+        Board b = new Board(rows, cols);
+        int[] line = new int[plies];
+        for (int attempt = 0; attempt < MAX_OPENING_ATTEMPTS; attempt++) {
+            b.initializeBoard();
+            if (playOpening(rng, b, line)) return line;
+        }
+        throw new IllegalStateException("No " + plies + "-ply opening without a win found on " + rows + "x" + cols);
+    }
+
+    // Fills line on b; false as soon as the side to move has no legal non-winning move
+    private static boolean playOpening(Random rng, Board b, int[] line) {
+        char player = 'R';
+        for (int i = 0; i < line.length; i++) {
+            if (!hasQuietMove(b, player)) return false;
+            int col;
+            do {
+                col = rng.nextInt(b.getCols());
+            } while (!b.isValidMove(col) || b.isWinningMove(col, player));
+            b.insertDisc(col, player);
+            line[i] = col;
+            player = (player == 'R') ? 'Y' : 'R';
+        }
+        return true;
+    }
+
+    private static boolean hasQuietMove(Board b, char player) {
+        for (int col = 0; col < b.getCols(); col++)
+            if (b.isValidMove(col) && !b.isWinningMove(col, player)) return true;
+        return false;
+    }
+
+    // =====================================================================
+    // METHOD 2: REPORT
+    // Score per pairing; Elo by iterative maximum likelihood (one virtual
+    // draw per pairing keeps perfect scores finite), anchored so the first
+    // engine is 0; latency percentiles and nodes/second per engine.
+    // TIME COMPLEXITY: O(games * moves + M log M) for M recorded moves
+    // =====================================================================
+
+    public void report(List<GameResult> results, double seconds) {
+        int n = engines.length;
+        double[][] points = new double[n][n];
+        int[][] played = new int[n][n];
+        int wins = 0, draws = 0;
+        for (GameResult r : results) {
+            double redScore = r.winner == 'R' ? 1 : r.winner == 'Y' ? 0 : 0.5;
+            points[r.red][r.yellow] += redScore;
+            points[r.yellow][r.red] += 1 - redScore;
+            played[r.red][r.yellow]++;
+            played[r.yellow][r.red]++;
+            if (r.winner == ' ') draws++;
+            else wins++;
+        }
+
+        System.out.printf("%n%d games on %dx%d in %.1f s (%.1f games/s), %d decisive, %d draws%n",
+                results.size(), rows, cols, seconds, results.size() / seconds, wins, draws);
+        System.out.printf("%n%-10s %-10s %8s %8s %8s%n", "Engine", "vs", "games", "score", "elo diff");
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (played[i][j] == 0) continue;
+                double score = points[i][j] / played[i][j];
+                System.out.printf("%-10s %-10s %8d %7.1f%% %8.0f%n", engines[i], engines[j],
+                        played[i][j], 100 * score, eloDiff((points[i][j] + 0.5) / (played[i][j] + 1)));
+            }
+        }
+
+        double[] elo = fitElo(points, played);
+        System.out.printf("%n%-10s %8s %10s %10s %10s %10s %12s%n",
+                "Engine", "elo", "p50 ms", "p90 ms", "p99 ms", "max ms", "nodes/s");
+        for (int e = 0; e < n; e++) {
+            List<Long> lat = new ArrayList<>();
+            long totalNodes = 0, totalNanos = 0;
+            for (GameResult r : results) {
+                for (int m = 0; m < r.moves; m++) {
+                    if (r.moveEngine[m] != e) continue;
+                    lat.add(r.moveNanos[m]);
+                    totalNodes += r.moveNodes[m];
+                    totalNanos += r.moveNanos[m];
+                }
+            }
+            Collections.sort(lat);
+            String nps = totalNodes == 0 ? "-" : String.format("%.0f", totalNodes * 1e9 / totalNanos);
+            System.out.printf("%-10s %8.0f %10.3f %10.3f %10.3f %10.3f %12s%n", engines[e], elo[e],
+                    percentile(lat, 0.50), percentile(lat, 0.90), percentile(lat, 0.99),
+                    percentile(lat, 1.0), nps);
+        }
+    }
+
+    private static double eloDiff(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    private static double[] fitElo(double[][] points, int[][] played) {
+        int n = points.length;
+        double[] r = new double[n];
+        for (int iter = 0; iter < 1000; iter++) {
+            for (int i = 0; i < n; i++) {
+                double actual = 0, expected = 0, games = 0;
+                for (int j = 0; j < n; j++) {
+                    if (i == j || played[i][j] == 0) continue;
+                    double g = played[i][j] + 1;  // + one virtual draw
+                    actual += points[i][j] + 0.5;
+                    expected += g / (1 + Math.pow(10, (r[j] - r[i]) / 400));
+                    games += g;
+                }
+                if (games > 0) r[i] += 400 * (actual - expected) / games;
+            }
+        }
+        double anchor = r[0];
+        for (int i = 0; i < n; i++) r[i] -= anchor;
+        return r;
+    }
+
+    // Milliseconds at quantile q of sorted nanosecond samples
+    private static double percentile(List<Long> sorted, double q) {
+        if (sorted.isEmpty()) return 0;
+        int idx = (int) Math.ceil(q * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, idx))) / 1e6;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * TranspositionTable.java
+ * Fixed-size, array-backed transposition table shared by the search engines.
+ * Power-of-two number of 2-slot buckets: slot 0 is depth-preferred, slot 1 is
+ * always-replace. Each entry is two primitive longs, so probe and store never
+ * allocate and memory use is fixed at construction.
+ *
+ * The table persists across moves. Each search calls newSearch(), and entries
+ * are stamped with the generation that stored them. Entries from older
+ * generations stay probe-able but lose the depth-preferred slot to any new
+ * store.
+ *
+ * Entry layout (data word):
+ *   bits  0-31  score
+ *   bits 32-39  depth, clamped to MAX_DEPTH
+ *   bits 40-41  bound flag (EXACT / LOWER / UPPER)
+ *   bits 42-49  best move + 1 (0 = none)
+ *   bits 50-55  generation (mod 64)
+ *   bit  63     valid
+ * The key word stores (key ^ data); an entry matches only if it XORs back to
+ * the probed key, which also rejects torn writes from concurrent threads.
+ */
+
+import java.util.Arrays;
+
+public class TranspositionTable {
+
+    public static final int EXACT = 0, LOWER = 1, UPPER = 2;
+    /** Deepest depth an entry records; deeper stores (16x16 allows 256) are kept as this. */
+    public static final int MAX_DEPTH = 0xFF;
+
+    private static final long VALID = 1L << 63;
+    private static final int GENERATION_MASK = 0x3F;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private int generation;
+
+    /** @param log2Buckets table holds 2^log2Buckets buckets of 2 entries each */
+    public TranspositionTable(int log2Buckets) {
+        if (log2Buckets < 1 || log2Buckets > 26) {
+            throw new IllegalArgumentException("log2Buckets out of range: " + log2Buckets);
+        }
+        int buckets = 1 << log2Buckets;
+        this.keys = new long[buckets * 2];
+        this.data = new long[buckets * 2];
+        this.bucketMask = buckets - 1;
+    }
+
+    /** Returns the packed entry for key, or 0 on a miss. Decode with the static getters. */
+    public long probe(long key) {
+        int i = slotIndex(key);
+        long d = data[i];
+        if (d != 0 && (keys[i] ^ d) == key) return d;
+        d = data[i + 1];
+        if (d != 0 && (keys[i + 1] ^ d) == key) return d;
+        return 0L;
+    }
+
+    public void store(long key, int depth, int score, int flag, int bestMove) {
+        // Clamped, an entry only under-reports its depth: a probe may miss, never over-trust
+        depth = Math.max(0, Math.min(depth, MAX_DEPTH));
+        long d = pack(depth, score, flag, bestMove, generation);
+        int i = slotIndex(key);
+        long old = data[i];
+        // Depth-preferred slot: take it if empty, same position, stale, or we searched at least as deep
+        if (old == 0 || (keys[i] ^ old) == key || generationOf(old) != generation || depth >= depthOf(old)) {
+            data[i] = d;
+            keys[i] = key ^ d;
+        } else {
+            data[i + 1] = d;
+            keys[i + 1] = key ^ d;
+        }
+    }
+
+    /** Start a new search: entries stored from now on belong to the next generation. */
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    public static int scoreOf(long entry) {
+        return (int) entry;
+    }
+
+    public static int depthOf(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int flagOf(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    /** Best move column, or -1 if none was stored. */
+    public static int moveOf(long entry) {
+        return ((int) (entry >>> 42) & 0xFF) - 1;
+    }
+
+    private static int generationOf(long entry) {
+        return (int) (entry >>> 50) & GENERATION_MASK;
+    }
+
+    private static long pack(int depth, int score, int flag, int bestMove, int generation) {
+        return VALID
+                | ((long) generation << 50)
+                | ((long) ((bestMove + 1) & 0xFF) << 42)
+                | ((long) (flag & 0x3) << 40)
+                | ((long) depth << 32)
+                | (score & 0xFFFFFFFFL);
+    }
+
+    private int slotIndex(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) << 1;
+    }
+}